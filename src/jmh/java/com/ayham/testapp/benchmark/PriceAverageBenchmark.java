@@ -0,0 +1,157 @@
+package com.ayham.testapp.benchmark;
+
+import com.ayham.testapp.TestApp;
+import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.domain.ProductPrice;
+import com.ayham.testapp.domain.enumeration.Status;
+import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.repository.ProductRepository;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the average price of a product computed by the former path, loading every {@link ProductPrice} of the
+ * product and filtering them in Java, with the aggregate query of {@link ProductPriceRepository#getStatisticsForProduct}.
+ * <p>
+ * Compiled from src/jmh/java with the benchmark profile only, and run against the dev H2 database:
+ * {@code ./mvnw -Pdev,benchmark test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ayham.testapp.benchmark.PriceAverageBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceAverageBenchmark {
+
+    private static final Instant ORIGIN = Instant.parse("2020-01-01T00:00:00Z");
+
+    /**
+     * Number of daily prices of the product, the window covering the middle half of them.
+     */
+    @Param({ "100", "1000", "10000" })
+    private int priceCount;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionTemplate transactionTemplate;
+
+    private EntityManager entityManager;
+
+    private ProductPriceRepository productPriceRepository;
+
+    private Long productId;
+
+    private Instant startDate;
+
+    private Instant endDate;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PriceAverageBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context =
+            new SpringApplicationBuilder(TestApp.class)
+                .profiles("dev")
+                .web(WebApplicationType.NONE)
+                .properties(
+                    "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=LEGACY",
+                    "application.search.directory=" + Files.createTempDirectory("benchmark-search-index"),
+                    "spring.jpa.show-sql=false"
+                )
+                .run();
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        productPriceRepository = context.getBean(ProductPriceRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        productId =
+            transactionTemplate.execute(status -> {
+                Product product = productRepository.save(new Product().title("benchmark").status(Status.ACTIVE));
+                for (int i = 0; i < priceCount; i++) {
+                    Instant start = ORIGIN.plus(Duration.ofDays(i));
+                    productPriceRepository.save(
+                        new ProductPrice().product(product).startDate(start).endDate(start.plus(Duration.ofDays(1))).price(100L + i % 50)
+                    );
+                }
+                return product.getId();
+            });
+        startDate = ORIGIN.plus(Duration.ofDays(priceCount / 4));
+        endDate = ORIGIN.plus(Duration.ofDays(3L * priceCount / 4));
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * The former path: every price of the product is loaded as a managed entity, then filtered and averaged in Java.
+     */
+    @Benchmark
+    public double loadAndFilterInMemory() {
+        return transactionTemplate.execute(status ->
+            entityManager
+                .createQuery(
+                    "select productPrice from ProductPrice productPrice where productPrice.product.id = :productId",
+                    ProductPrice.class
+                )
+                .setParameter("productId", productId)
+                .getResultList()
+                .stream()
+                .filter(price -> isIncludedInRange(price, startDate, endDate))
+                .mapToDouble(ProductPrice::getPrice)
+                .average()
+                .orElse(0)
+        );
+    }
+
+    /**
+     * The current path: one aggregate query over the overlapping prices, returning a scalar projection.
+     */
+    @Benchmark
+    public double aggregateQuery() {
+        return transactionTemplate.execute(status ->
+            productPriceRepository.getStatisticsForProduct(productId, startDate, endDate).getAverage()
+        );
+    }
+
+    private static boolean isIncludedInRange(ProductPrice price, Instant startDate, Instant endDate) {
+        return (
+            (price.getStartDate().isAfter(startDate) && price.getEndDate().isBefore(endDate)) ||
+            startDate.isAfter(price.getStartDate()) &&
+            startDate.isBefore(price.getEndDate()) ||
+            endDate.isAfter(price.getStartDate()) &&
+            endDate.isBefore(price.getEndDate())
+        );
+    }
+}
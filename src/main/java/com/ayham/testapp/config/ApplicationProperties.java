@@ -1,5 +1,7 @@
 package com.ayham.testapp.config;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,7 +11,648 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final Security security = new Security();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final Session session = new Session();
+
+    private final PriceRollup priceRollup = new PriceRollup();
+
+    private final PriceIndex priceIndex = new PriceIndex();
+
+    private final PriceAnalytics priceAnalytics = new PriceAnalytics();
+
+    private final LikeCount likeCount = new LikeCount();
+
+    private final LikeBuffer likeBuffer = new LikeBuffer();
+
+    private final Search search = new Search();
+
+    private final Autocomplete autocomplete = new Autocomplete();
+
+    private final Bulk bulk = new Bulk();
+
     // jhipster-needle-application-properties-property
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public PriceRollup getPriceRollup() {
+        return priceRollup;
+    }
+
+    public PriceIndex getPriceIndex() {
+        return priceIndex;
+    }
+
+    public PriceAnalytics getPriceAnalytics() {
+        return priceAnalytics;
+    }
+
+    public LikeCount getLikeCount() {
+        return likeCount;
+    }
+
+    public LikeBuffer getLikeBuffer() {
+        return likeBuffer;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Autocomplete getAutocomplete() {
+        return autocomplete;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class TokenCache {
+
+        private boolean enabled = true;
+
+        private long timeToLiveSeconds = 300;
+
+        private long sharedStoreTimeToLiveSeconds = 10;
+
+        private long maxEntries = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getSharedStoreTimeToLiveSeconds() {
+            return sharedStoreTimeToLiveSeconds;
+        }
+
+        public void setSharedStoreTimeToLiveSeconds(long sharedStoreTimeToLiveSeconds) {
+            this.sharedStoreTimeToLiveSeconds = sharedStoreTimeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class Security {
+
+        private TokenMode tokenMode = TokenMode.OPAQUE;
+
+        private List<String> adminUsernames = new ArrayList<>();
+
+        private final Revocation revocation = new Revocation();
+
+        public TokenMode getTokenMode() {
+            return tokenMode;
+        }
+
+        public void setTokenMode(TokenMode tokenMode) {
+            this.tokenMode = tokenMode;
+        }
+
+        public List<String> getAdminUsernames() {
+            return adminUsernames;
+        }
+
+        public void setAdminUsernames(List<String> adminUsernames) {
+            this.adminUsernames = adminUsernames;
+        }
+
+        public Revocation getRevocation() {
+            return revocation;
+        }
+
+        public enum TokenMode {
+            /**
+             * Random tokens looked up in the database.
+             */
+            OPAQUE,
+            /**
+             * Signed JWTs verified in memory.
+             */
+            SIGNED,
+        }
+
+        public static class Revocation {
+
+            private long bucketSeconds = 3600;
+
+            private int expectedInsertions = 10000;
+
+            private double falsePositiveProbability = 0.001;
+
+            private long refreshDelayMs = 30000;
+
+            public long getBucketSeconds() {
+                return bucketSeconds;
+            }
+
+            public void setBucketSeconds(long bucketSeconds) {
+                this.bucketSeconds = bucketSeconds;
+            }
+
+            public int getExpectedInsertions() {
+                return expectedInsertions;
+            }
+
+            public void setExpectedInsertions(int expectedInsertions) {
+                this.expectedInsertions = expectedInsertions;
+            }
+
+            public double getFalsePositiveProbability() {
+                return falsePositiveProbability;
+            }
+
+            public void setFalsePositiveProbability(double falsePositiveProbability) {
+                this.falsePositiveProbability = falsePositiveProbability;
+            }
+
+            public long getRefreshDelayMs() {
+                return refreshDelayMs;
+            }
+
+            public void setRefreshDelayMs(long refreshDelayMs) {
+                this.refreshDelayMs = refreshDelayMs;
+            }
+        }
+    }
+
+    public static class PasswordHashing {
+
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+
+        private int queueCapacity = 64;
+
+        private long targetMillis = 250;
+
+        private int minStrength = 10;
+
+        private int maxStrength = 14;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTargetMillis() {
+            return targetMillis;
+        }
+
+        public void setTargetMillis(long targetMillis) {
+            this.targetMillis = targetMillis;
+        }
+
+        public int getMinStrength() {
+            return minStrength;
+        }
+
+        public void setMinStrength(int minStrength) {
+            this.minStrength = minStrength;
+        }
+
+        public int getMaxStrength() {
+            return maxStrength;
+        }
+
+        public void setMaxStrength(int maxStrength) {
+            this.maxStrength = maxStrength;
+        }
+    }
+
+    public static class Session {
+
+        private Store store = Store.MEMORY;
+
+        private long idleTimeoutSeconds = 1800;
+
+        private long sweepDelayMs = 60000;
+
+        private int stripes = 16;
+
+        public Store getStore() {
+            return store;
+        }
+
+        public void setStore(Store store) {
+            this.store = store;
+        }
+
+        public long getIdleTimeoutSeconds() {
+            return idleTimeoutSeconds;
+        }
+
+        public void setIdleTimeoutSeconds(long idleTimeoutSeconds) {
+            this.idleTimeoutSeconds = idleTimeoutSeconds;
+        }
+
+        public long getSweepDelayMs() {
+            return sweepDelayMs;
+        }
+
+        public void setSweepDelayMs(long sweepDelayMs) {
+            this.sweepDelayMs = sweepDelayMs;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public enum Store {
+            /**
+             * Sessions kept in the memory of this node, for single node deployments.
+             */
+            MEMORY,
+            /**
+             * Sessions kept in the user_session table, shared by all nodes.
+             */
+            DATABASE,
+        }
+    }
+
+    public static class PriceRollup {
+
+        private boolean enabled = false;
+
+        private int horizonStartYear = 2000;
+
+        private int horizonEndYear = 2100;
+
+        private int rebuildThreads = Runtime.getRuntime().availableProcessors();
+
+        private int rebuildChunkSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getHorizonStartYear() {
+            return horizonStartYear;
+        }
+
+        public void setHorizonStartYear(int horizonStartYear) {
+            this.horizonStartYear = horizonStartYear;
+        }
+
+        public int getHorizonEndYear() {
+            return horizonEndYear;
+        }
+
+        public void setHorizonEndYear(int horizonEndYear) {
+            this.horizonEndYear = horizonEndYear;
+        }
+
+        public int getRebuildThreads() {
+            return rebuildThreads;
+        }
+
+        public void setRebuildThreads(int rebuildThreads) {
+            this.rebuildThreads = rebuildThreads;
+        }
+
+        public int getRebuildChunkSize() {
+            return rebuildChunkSize;
+        }
+
+        public void setRebuildChunkSize(int rebuildChunkSize) {
+            this.rebuildChunkSize = rebuildChunkSize;
+        }
+    }
+
+    public static class PriceIndex {
+
+        private boolean enabled = true;
+
+        private long maxBytes = 64L * 1024 * 1024;
+
+        private long timeToLiveSeconds = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    public static class PriceAnalytics {
+
+        private int poolSize = 4;
+
+        private int queueCapacity = 100;
+
+        private int maxBatchSize = 10000;
+
+        private int maxIdsPerQuery = 500;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getMaxIdsPerQuery() {
+            return maxIdsPerQuery;
+        }
+
+        public void setMaxIdsPerQuery(int maxIdsPerQuery) {
+            this.maxIdsPerQuery = maxIdsPerQuery;
+        }
+    }
+
+    public static class LikeCount {
+
+        private boolean reconcileEnabled = false;
+
+        private String reconcileCron = "0 30 3 * * *";
+
+        private int reconcileChunkSize = 1000;
+
+        public boolean isReconcileEnabled() {
+            return reconcileEnabled;
+        }
+
+        public void setReconcileEnabled(boolean reconcileEnabled) {
+            this.reconcileEnabled = reconcileEnabled;
+        }
+
+        public String getReconcileCron() {
+            return reconcileCron;
+        }
+
+        public void setReconcileCron(String reconcileCron) {
+            this.reconcileCron = reconcileCron;
+        }
+
+        public int getReconcileChunkSize() {
+            return reconcileChunkSize;
+        }
+
+        public void setReconcileChunkSize(int reconcileChunkSize) {
+            this.reconcileChunkSize = reconcileChunkSize;
+        }
+    }
+
+    public static class LikeBuffer {
+
+        private boolean enabled = false;
+
+        private long flushDelayMs = 1000;
+
+        private int shards = 16;
+
+        private int batchSize = 500;
+
+        private long maxEntries = 100000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getFlushDelayMs() {
+            return flushDelayMs;
+        }
+
+        public void setFlushDelayMs(long flushDelayMs) {
+            this.flushDelayMs = flushDelayMs;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class Search {
+
+        private String directory = "search-index";
+
+        private long refreshDelayMs = 1000;
+
+        private long commitDelayMs = 60000;
+
+        private int reindexThreads = Runtime.getRuntime().availableProcessors();
+
+        private int reindexChunkSize = 1000;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getRefreshDelayMs() {
+            return refreshDelayMs;
+        }
+
+        public void setRefreshDelayMs(long refreshDelayMs) {
+            this.refreshDelayMs = refreshDelayMs;
+        }
+
+        public long getCommitDelayMs() {
+            return commitDelayMs;
+        }
+
+        public void setCommitDelayMs(long commitDelayMs) {
+            this.commitDelayMs = commitDelayMs;
+        }
+
+        public int getReindexThreads() {
+            return reindexThreads;
+        }
+
+        public void setReindexThreads(int reindexThreads) {
+            this.reindexThreads = reindexThreads;
+        }
+
+        public int getReindexChunkSize() {
+            return reindexChunkSize;
+        }
+
+        public void setReindexChunkSize(int reindexChunkSize) {
+            this.reindexChunkSize = reindexChunkSize;
+        }
+    }
+
+    public static class Autocomplete {
+
+        private int maxProducts = 200000;
+
+        private int precomputedPrefixLength = 2;
+
+        private long rebuildDelayMs = 300000;
+
+        private int overlayLimit = 10000;
+
+        public int getMaxProducts() {
+            return maxProducts;
+        }
+
+        public void setMaxProducts(int maxProducts) {
+            this.maxProducts = maxProducts;
+        }
+
+        public int getPrecomputedPrefixLength() {
+            return precomputedPrefixLength;
+        }
+
+        public void setPrecomputedPrefixLength(int precomputedPrefixLength) {
+            this.precomputedPrefixLength = precomputedPrefixLength;
+        }
+
+        public long getRebuildDelayMs() {
+            return rebuildDelayMs;
+        }
+
+        public void setRebuildDelayMs(long rebuildDelayMs) {
+            this.rebuildDelayMs = rebuildDelayMs;
+        }
+
+        public int getOverlayLimit() {
+            return overlayLimit;
+        }
+
+        public void setOverlayLimit(int overlayLimit) {
+            this.overlayLimit = overlayLimit;
+        }
+    }
+
+    public static class Bulk {
+
+        private int maxItems = 1000;
+
+        private int chunkSize = 250;
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
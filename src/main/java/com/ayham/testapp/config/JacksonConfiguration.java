@@ -1,8 +1,16 @@
 package com.ayham.testapp.config;
 
+import com.ayham.testapp.service.dto.SparseDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zalando.problem.jackson.ProblemModule;
@@ -26,11 +34,11 @@ public class JacksonConfiguration {
     }
 
     /*
-     * Support for Hibernate types in Jackson.
+     * Support for Hibernate types in Jackson, a lazy association that was not fetched is written as its id.
      */
     @Bean
     public Hibernate5Module hibernate5Module() {
-        return new Hibernate5Module();
+        return new Hibernate5Module().enable(Hibernate5Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
     }
 
     /*
@@ -48,4 +56,24 @@ public class JacksonConfiguration {
     public ConstraintViolationProblemModule constraintViolationProblemModule() {
         return new ConstraintViolationProblemModule();
     }
+
+    /*
+     * Writes the fields selected in a SparseDTO, even when null, and leaves the others out.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsFilter() {
+        SimpleBeanPropertyFilter filter = new SimpleBeanPropertyFilter() {
+            @Override
+            public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider, PropertyWriter writer)
+                throws Exception {
+                Set<String> selectedFields = pojo instanceof SparseDTO ? ((SparseDTO) pojo).getSelectedFields() : null;
+                if (selectedFields == null || selectedFields.contains(writer.getName())) {
+                    writer.serializeAsField(pojo, generator, provider);
+                } else if (!generator.canOmitFields()) {
+                    writer.serializeAsOmittedField(pojo, generator, provider);
+                }
+            }
+        };
+        return builder -> builder.filters(new SimpleFilterProvider().addFilter(SparseDTO.FILTER, filter));
+    }
 }
@@ -1,14 +1,12 @@
 package com.ayham.testapp.config;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import com.ayham.testapp.security.TokenAuthenticationFilter;
+import com.ayham.testapp.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.access.AccessDecisionManager;
-import org.springframework.security.access.AccessDecisionVoter;
-import org.springframework.security.access.vote.UnanimousBased;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -16,6 +14,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 
 @EnableWebSecurity
@@ -23,24 +22,52 @@ import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 @Import(SecurityProblemSupport.class)
 public class SecurityConfiguration {
 
+    private final Logger log = LoggerFactory.getLogger(SecurityConfiguration.class);
+
     private final SecurityProblemSupport problemSupport;
 
-    public SecurityConfiguration(SecurityProblemSupport problemSupport) {
+    private final ApplicationProperties applicationProperties;
+
+    public SecurityConfiguration(SecurityProblemSupport problemSupport, ApplicationProperties applicationProperties) {
         this.problemSupport = problemSupport;
+        this.applicationProperties = applicationProperties;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(calibrateBCryptStrength());
+    }
+
+    /**
+     * Picks the highest BCrypt cost whose hashing time on this machine stays within
+     * {@code application.password-hashing.target-millis}. Each extra cost unit doubles the work, so a single timed hash at
+     * the minimum cost is enough to extrapolate. Existing hashes keep verifying as the cost is stored in the hash itself.
+     */
+    private int calibrateBCryptStrength() {
+        ApplicationProperties.PasswordHashing properties = applicationProperties.getPasswordHashing();
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(properties.getMinStrength());
+        probe.encode("calibration");
+        long start = System.nanoTime();
+        probe.encode("calibration");
+        double elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000.0);
+        int extra = (int) Math.floor(Math.log(properties.getTargetMillis() / elapsedMillis) / Math.log(2));
+        int strength = Math.min(properties.getMaxStrength(), Math.max(properties.getMinStrength(), properties.getMinStrength() + extra));
+        log.info("Using BCrypt strength {} (cost {} took {} ms)", strength, properties.getMinStrength(), Math.round(elapsedMillis));
+        return strength;
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, UserService userService) throws Exception {
+        TokenAuthenticationFilter tokenAuthenticationFilter = new TokenAuthenticationFilter(
+            userService,
+            applicationProperties.getSecurity().getAdminUsernames()
+        );
         // @formatter:off
         http
             .csrf()
             .ignoringAntMatchers("/h2-console/**")
             .disable()
+            .addFilterBefore(tokenAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
             .exceptionHandling()
                 .authenticationEntryPoint(problemSupport)
                 .accessDeniedHandler(problemSupport)
@@ -54,17 +81,13 @@ public class SecurityConfiguration {
             .antMatchers("/h2-console/**").permitAll()
             .antMatchers("/api/users/login").permitAll()
             .antMatchers("/api/users/register").permitAll()
-            .antMatchers("/api/users/logout").authenticated().accessDecisionManager(accessDecisionManager())
-            .antMatchers("/api/products/**").authenticated().accessDecisionManager(accessDecisionManager())
-            .antMatchers("/api/categories/**").authenticated().accessDecisionManager(accessDecisionManager())
-            .antMatchers("/api/product-prices/**").authenticated().accessDecisionManager(accessDecisionManager());
+            .antMatchers("/api/users/logout").authenticated()
+            .antMatchers("/api/products/**").authenticated()
+            .antMatchers("/api/categories/**").authenticated()
+            .antMatchers("/api/product-prices/**").authenticated()
+            .antMatchers("/api/users/**").authenticated()
+            .antMatchers("/api/**").authenticated();
         return http.build();
         // @formatter:on
     }
-
-    @Bean
-    public AccessDecisionManager accessDecisionManager() {
-        List<AccessDecisionVoter<? extends Object>> decisionVoters = Collections.singletonList(new CustomAccessDecisionVoter());
-        return new UnanimousBased(decisionVoters);
-    }
 }
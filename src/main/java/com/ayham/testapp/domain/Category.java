@@ -5,17 +5,25 @@ import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * A Category.
  */
 @Entity
 @Table(name = "category")
+@NamedEntityGraph(name = Category.SUMMARY_GRAPH, attributeNodes = @NamedAttributeNode("parent"))
+@BatchSize(size = 100)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Category implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fetch plan of the category reads: the parent, serialized with every category.
+     */
+    public static final String SUMMARY_GRAPH = "Category.summary";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -26,10 +34,11 @@ public class Category implements Serializable {
     private String title;
 
     @OneToMany(mappedBy = "parent")
+    @BatchSize(size = 100)
     @JsonIgnoreProperties(value = { "categories", "parent" }, allowSetters = true)
     private Set<Category> categories = new HashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "categories", "parent" }, allowSetters = true)
     private Category parent;
 
@@ -115,7 +124,7 @@ public class Category implements Serializable {
         if (!(o instanceof Category)) {
             return false;
         }
-        return id != null && id.equals(((Category) o).id);
+        return id != null && id.equals(((Category) o).getId());
     }
 
     @Override
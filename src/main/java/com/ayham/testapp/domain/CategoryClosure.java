@@ -0,0 +1,63 @@
+package com.ayham.testapp.domain;
+
+import java.io.Serializable;
+import javax.persistence.*;
+
+/**
+ * A path of the {@link Category} tree: one row for every category and each of its ancestors, itself included at depth 0.
+ */
+@Entity
+@Table(name = "category_closure")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class CategoryClosure implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @EmbeddedId
+    private CategoryClosureId id;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    public CategoryClosureId getId() {
+        return this.id;
+    }
+
+    public void setId(CategoryClosureId id) {
+        this.id = id;
+    }
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryClosure)) {
+            return false;
+        }
+        return id != null && id.equals(((CategoryClosure) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CategoryClosure{" +
+            "id=" + getId() +
+            ", depth=" + getDepth() +
+            "}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.ayham.testapp.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * The primary key of a {@link CategoryClosure}.
+ */
+@Embeddable
+public class CategoryClosureId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+
+    public CategoryClosureId() {}
+
+    public CategoryClosureId(Long ancestorId, Long descendantId) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+    }
+
+    public Long getAncestorId() {
+        return this.ancestorId;
+    }
+
+    public void setAncestorId(Long ancestorId) {
+        this.ancestorId = ancestorId;
+    }
+
+    public Long getDescendantId() {
+        return this.descendantId;
+    }
+
+    public void setDescendantId(Long descendantId) {
+        this.descendantId = descendantId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryClosureId)) {
+            return false;
+        }
+        CategoryClosureId other = (CategoryClosureId) o;
+        return Objects.equals(ancestorId, other.ancestorId) && Objects.equals(descendantId, other.descendantId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ancestorId, descendantId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CategoryClosureId{" +
+            "ancestorId=" + getAncestorId() +
+            ", descendantId=" + getDescendantId() +
+            "}";
+    }
+}
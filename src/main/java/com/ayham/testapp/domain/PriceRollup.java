@@ -0,0 +1,219 @@
+package com.ayham.testapp.domain;
+
+import com.ayham.testapp.domain.enumeration.RollupGranularity;
+import com.ayham.testapp.domain.enumeration.RollupScope;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * Prices of a product or a category aggregated over one hour, day, month or year bucket.
+ * <p>
+ * Each price is split into the whole years, months and days it covers, and the hours left at its ends, so a price is
+ * counted in a single bucket for any instant and the buckets of every granularity can be added up. Only the hour
+ * buckets hold parts of a price not covering them entirely. {@code weightedSum} and {@code coveredMillis} hold the
+ * part of each price inside the bucket.
+ */
+@Entity
+@Table(name = "price_rollup")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class PriceRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false)
+    private RollupScope scope;
+
+    @NotNull
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false)
+    private RollupGranularity granularity;
+
+    @NotNull
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "price_sum", nullable = false)
+    private long priceSum;
+
+    @Column(name = "price_count", nullable = false)
+    private long priceCount;
+
+    @Column(name = "min_price")
+    private Long minPrice;
+
+    @Column(name = "max_price")
+    private Long maxPrice;
+
+    @Column(name = "weighted_sum", precision = 38, scale = 0, nullable = false)
+    private BigDecimal weightedSum = BigDecimal.ZERO;
+
+    @Column(name = "covered_millis", nullable = false)
+    private long coveredMillis;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public PriceRollup id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public RollupScope getScope() {
+        return this.scope;
+    }
+
+    public PriceRollup scope(RollupScope scope) {
+        this.setScope(scope);
+        return this;
+    }
+
+    public void setScope(RollupScope scope) {
+        this.scope = scope;
+    }
+
+    public Long getScopeId() {
+        return this.scopeId;
+    }
+
+    public PriceRollup scopeId(Long scopeId) {
+        this.setScopeId(scopeId);
+        return this;
+    }
+
+    public void setScopeId(Long scopeId) {
+        this.scopeId = scopeId;
+    }
+
+    public RollupGranularity getGranularity() {
+        return this.granularity;
+    }
+
+    public PriceRollup granularity(RollupGranularity granularity) {
+        this.setGranularity(granularity);
+        return this;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public Instant getBucketStart() {
+        return this.bucketStart;
+    }
+
+    public PriceRollup bucketStart(Instant bucketStart) {
+        this.setBucketStart(bucketStart);
+        return this;
+    }
+
+    public void setBucketStart(Instant bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getPriceSum() {
+        return this.priceSum;
+    }
+
+    public void setPriceSum(long priceSum) {
+        this.priceSum = priceSum;
+    }
+
+    public long getPriceCount() {
+        return this.priceCount;
+    }
+
+    public void setPriceCount(long priceCount) {
+        this.priceCount = priceCount;
+    }
+
+    public Long getMinPrice() {
+        return this.minPrice;
+    }
+
+    public void setMinPrice(Long minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Long getMaxPrice() {
+        return this.maxPrice;
+    }
+
+    public void setMaxPrice(Long maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public BigDecimal getWeightedSum() {
+        return this.weightedSum;
+    }
+
+    public void setWeightedSum(BigDecimal weightedSum) {
+        this.weightedSum = weightedSum;
+    }
+
+    public long getCoveredMillis() {
+        return this.coveredMillis;
+    }
+
+    public void setCoveredMillis(long coveredMillis) {
+        this.coveredMillis = coveredMillis;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PriceRollup)) {
+            return false;
+        }
+        return id != null && id.equals(((PriceRollup) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceRollup{" +
+            "id=" + getId() +
+            ", scope='" + getScope() + "'" +
+            ", scopeId=" + getScopeId() +
+            ", granularity='" + getGranularity() + "'" +
+            ", bucketStart='" + getBucketStart() + "'" +
+            ", priceSum=" + getPriceSum() +
+            ", priceCount=" + getPriceCount() +
+            ", minPrice=" + getMinPrice() +
+            ", maxPrice=" + getMaxPrice() +
+            ", weightedSum=" + getWeightedSum() +
+            ", coveredMillis=" + getCoveredMillis() +
+            "}";
+    }
+}
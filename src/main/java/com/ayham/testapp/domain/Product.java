@@ -7,17 +7,34 @@ import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * A Product.
  */
 @Entity
 @Table(name = "product")
+@NamedEntityGraph(name = Product.SUMMARY_GRAPH, attributeNodes = { @NamedAttributeNode("category"), @NamedAttributeNode("owner") })
+@NamedEntityGraph(
+    name = Product.DETAIL_GRAPH,
+    attributeNodes = { @NamedAttributeNode("category"), @NamedAttributeNode("owner"), @NamedAttributeNode("userLikes") }
+)
+@BatchSize(size = 100)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Product implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fetch plan of the listings: the to-one associations, serialized with every product.
+     */
+    public static final String SUMMARY_GRAPH = "Product.summary";
+
+    /**
+     * Fetch plan of a single product: the to-one associations and the likes.
+     */
+    public static final String DETAIL_GRAPH = "Product.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -36,19 +53,27 @@ public class Product implements Serializable {
     @Column(name = "status", nullable = false)
     private Status status;
 
+    /**
+     * Number of users liking the product, only ever changed by atomic updates of the column.
+     */
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    private long likeCount;
+
     @OneToMany(mappedBy = "product")
+    @BatchSize(size = 100)
     @JsonIgnoreProperties(value = { "product" }, allowSetters = true)
     private Set<ProductPrice> productPrices = new HashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "categories", "parent" }, allowSetters = true)
     private Category category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "products", "likes" }, allowSetters = true)
     private User owner;
 
     @ManyToMany(mappedBy = "likes")
+    @BatchSize(size = 100)
     private Set<User> userLikes;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
@@ -162,6 +187,19 @@ public class Product implements Serializable {
         return this;
     }
 
+    public long getLikeCount() {
+        return this.likeCount;
+    }
+
+    public Product likeCount(long likeCount) {
+        this.setLikeCount(likeCount);
+        return this;
+    }
+
+    public void setLikeCount(long likeCount) {
+        this.likeCount = likeCount;
+    }
+
     public Set<User> getUserLikes() {
         return this.userLikes;
     }
@@ -185,7 +223,7 @@ public class Product implements Serializable {
         if (!(o instanceof Product)) {
             return false;
         }
-        return id != null && id.equals(((Product) o).id);
+        return id != null && id.equals(((Product) o).getId());
     }
 
     @Override
@@ -202,6 +240,7 @@ public class Product implements Serializable {
             ", title='" + getTitle() + "'" +
             ", description='" + getDescription() + "'" +
             ", status='" + getStatus() + "'" +
+            ", likeCount=" + getLikeCount() +
             "}";
     }
 }
@@ -10,11 +10,17 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name = "product_price")
+@NamedEntityGraph(name = ProductPrice.SUMMARY_GRAPH, attributeNodes = @NamedAttributeNode("product"))
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class ProductPrice implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fetch plan of the price reads: the product, serialized with every price.
+     */
+    public static final String SUMMARY_GRAPH = "ProductPrice.summary";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -30,7 +36,7 @@ public class ProductPrice implements Serializable {
     @Column(name = "price")
     private Long price;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "productPrices", "category", "owner", "user" }, allowSetters = true)
     private Product product;
 
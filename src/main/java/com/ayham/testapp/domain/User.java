@@ -6,12 +6,14 @@ import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * A User.
  */
 @Entity
 @Table(name = "_user")
+@BatchSize(size = 100)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class User implements Serializable {
 
@@ -34,9 +36,6 @@ public class User implements Serializable {
     @Column(name = "password", nullable = false)
     private String password;
 
-    @Column(name = "token")
-    private String token;
-
     @OneToMany(mappedBy = "owner")
     @JsonIgnoreProperties(value = { "productPrices", "category", "owner", "user" }, allowSetters = true)
     private Set<Product> products = new HashSet<>();
@@ -82,11 +81,6 @@ public class User implements Serializable {
         return this;
     }
 
-    public User token(String token) {
-        this.setToken(token);
-        return this;
-    }
-
     public void setEmail(String email) {
         this.email = email;
     }
@@ -135,14 +129,6 @@ public class User implements Serializable {
         return this;
     }
 
-    public String getToken() {
-        return token;
-    }
-
-    public void setToken(String token) {
-        this.token = token;
-    }
-
     public Set<Product> getLikes() {
         return this.likes;
     }
@@ -161,7 +147,7 @@ public class User implements Serializable {
         if (!(o instanceof User)) {
             return false;
         }
-        return id != null && id.equals(((User) o).id);
+        return id != null && id.equals(((User) o).getId());
     }
 
     @Override
@@ -0,0 +1,137 @@
+package com.ayham.testapp.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * An opaque access token issued at login, kept in a narrow table so login and logout are a single insert and delete.
+ */
+@Entity
+@Table(name = "user_session")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class UserSession implements Serializable, Persistable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "token", length = 64)
+    private String token;
+
+    @NotNull
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Transient
+    private boolean isPersisted;
+
+    public String getToken() {
+        return this.token;
+    }
+
+    public UserSession token(String token) {
+        this.setToken(token);
+        return this;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Long getUserId() {
+        return this.userId;
+    }
+
+    public UserSession userId(Long userId) {
+        this.setUserId(userId);
+        return this;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public UserSession createdAt(Instant createdAt) {
+        this.setCreatedAt(createdAt);
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public UserSession expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getId() {
+        return this.token;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void updateEntityState() {
+        this.setIsPersisted();
+    }
+
+    @Override
+    public boolean isNew() {
+        return !this.isPersisted;
+    }
+
+    public UserSession setIsPersisted() {
+        this.isPersisted = true;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserSession)) {
+            return false;
+        }
+        return token != null && token.equals(((UserSession) o).token);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserSession{" +
+            "userId=" + getUserId() +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,11 @@
+package com.ayham.testapp.domain.enumeration;
+
+/**
+ * The RollupGranularity enumeration.
+ */
+public enum RollupGranularity {
+    HOUR,
+    DAY,
+    MONTH,
+    YEAR,
+}
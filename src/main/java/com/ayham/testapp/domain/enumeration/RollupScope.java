@@ -0,0 +1,9 @@
+package com.ayham.testapp.domain.enumeration;
+
+/**
+ * The RollupScope enumeration.
+ */
+public enum RollupScope {
+    PRODUCT,
+    CATEGORY,
+}
@@ -0,0 +1,53 @@
+package com.ayham.testapp.repository;
+
+import com.ayham.testapp.domain.CategoryClosure;
+import com.ayham.testapp.domain.CategoryClosureId;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the CategoryClosure entity.
+ */
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosureId> {
+    @Query(
+        "select count(closure) > 0 from CategoryClosure closure " +
+        "where closure.id.ancestorId = :ancestorId and closure.id.descendantId = :descendantId"
+    )
+    boolean isAncestor(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    @Modifying
+    @Query(value = "insert into category_closure (ancestor_id, descendant_id, depth) values (:id, :id, 0)", nativeQuery = true)
+    int insertSelf(@Param("id") Long id);
+
+    /**
+     * Unlinks the subtree of a category from the ancestors outside of it.
+     */
+    @Modifying
+    @Query(
+        value = "delete from category_closure where " +
+        "descendant_id in (select subtree.descendant_id from category_closure subtree where subtree.ancestor_id = :id) and " +
+        "ancestor_id not in (select subtree.descendant_id from category_closure subtree where subtree.ancestor_id = :id)",
+        nativeQuery = true
+    )
+    int detachSubtree(@Param("id") Long id);
+
+    /**
+     * Links the subtree of a category to its new parent and every ancestor of it. For a new category, the subtree is
+     * the category itself.
+     */
+    @Modifying
+    @Query(
+        value = "insert into category_closure (ancestor_id, descendant_id, depth) " +
+        "select supertree.ancestor_id, subtree.descendant_id, supertree.depth + subtree.depth + 1 " +
+        "from category_closure supertree cross join category_closure subtree " +
+        "where supertree.descendant_id = :parentId and subtree.ancestor_id = :id",
+        nativeQuery = true
+    )
+    int attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    @Modifying
+    @Query(value = "delete from category_closure where ancestor_id = :id or descendant_id = :id", nativeQuery = true)
+    int deleteCategory(@Param("id") Long id);
+}
@@ -1,7 +1,13 @@
 package com.ayham.testapp.repository;
 
 import com.ayham.testapp.domain.Category;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +15,25 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {}
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @Query("select category.id from Category category")
+    List<Long> findAllIds();
+
+    @Query("select category.parent.id from Category category where category.id = :id")
+    Optional<Long> findParentId(@Param("id") Long id);
+
+    @Override
+    @EntityGraph(Category.SUMMARY_GRAPH)
+    Page<Category> findAll(Pageable pageable);
+
+    @EntityGraph(Category.SUMMARY_GRAPH)
+    @Query("select category from Category category where category.id = :id")
+    Optional<Category> findOneWithEagerRelationships(@Param("id") Long id);
+
+    @EntityGraph(Category.SUMMARY_GRAPH)
+    Slice<Category> findSliceByOrderByIdAsc(Pageable pageable);
+
+    @EntityGraph(Category.SUMMARY_GRAPH)
+    @Query("select category from Category category where category.id > :id order by category.id")
+    Slice<Category> findSliceAfterId(@Param("id") Long id, Pageable pageable);
+}
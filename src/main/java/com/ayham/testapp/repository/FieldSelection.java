@@ -0,0 +1,105 @@
+package com.ayham.testapp.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+/**
+ * The fields of an entity that a request can select, each with the column it is read from and the DTO property it is
+ * written to, so that {@link ProjectionRepository} selects only those columns into DTOs. The {@code fields} parameter
+ * is validated against it by the service layer.
+ *
+ * @param <E> the entity.
+ * @param <D> the DTO.
+ */
+public final class FieldSelection<E, D> {
+
+    private final Class<E> entityClass;
+
+    private final Function<Set<String>, D> dtoFactory;
+
+    private final Map<String, Field<E, D, ?>> fields = new LinkedHashMap<>();
+
+    /**
+     * @param entityClass the entity.
+     * @param dtoFactory creates a DTO from the names of the selected fields.
+     */
+    public FieldSelection(Class<E> entityClass, Function<Set<String>, D> dtoFactory) {
+        this.entityClass = entityClass;
+        this.dtoFactory = dtoFactory;
+    }
+
+    /**
+     * Declares a selectable field.
+     *
+     * @param name the name of the field in the {@code fields} parameter.
+     * @param path the path of the column from the entity root.
+     * @param setter the setter of the DTO property.
+     * @return this selection.
+     */
+    public <X> FieldSelection<E, D> field(String name, Function<Root<E>, Path<X>> path, BiConsumer<D, X> setter) {
+        fields.put(name, new Field<>(path, setter));
+        return this;
+    }
+
+    /**
+     * @param name the name of a field in the {@code fields} parameter.
+     * @return true if the field is selectable.
+     */
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    /**
+     * @return the names of all the selectable fields, in declaration order.
+     */
+    public Set<String> getFieldNames() {
+        return Collections.unmodifiableSet(fields.keySet());
+    }
+
+    Class<E> getEntityClass() {
+        return entityClass;
+    }
+
+    List<Selection<?>> select(Root<E> root, Set<String> names) {
+        List<Selection<?>> selections = new ArrayList<>(names.size());
+        for (String name : names) {
+            selections.add(fields.get(name).path.apply(root).alias(name));
+        }
+        return selections;
+    }
+
+    D toDto(Tuple tuple, Set<String> names) {
+        D dto = dtoFactory.apply(names);
+        for (String name : names) {
+            fields.get(name).set(dto, tuple.get(name));
+        }
+        return dto;
+    }
+
+    private static final class Field<E, D, X> {
+
+        private final Function<Root<E>, Path<X>> path;
+
+        private final BiConsumer<D, X> setter;
+
+        private Field(Function<Root<E>, Path<X>> path, BiConsumer<D, X> setter) {
+            this.path = path;
+            this.setter = setter;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void set(D dto, Object value) {
+            setter.accept(dto, (X) value);
+        }
+    }
+}
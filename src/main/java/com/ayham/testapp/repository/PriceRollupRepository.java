@@ -0,0 +1,90 @@
+package com.ayham.testapp.repository;
+
+import com.ayham.testapp.domain.PriceRollup;
+import com.ayham.testapp.domain.enumeration.RollupGranularity;
+import com.ayham.testapp.domain.enumeration.RollupScope;
+import com.ayham.testapp.service.dto.PriceRangeStatisticsDTO;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the PriceRollup entity.
+ */
+@Repository
+public interface PriceRollupRepository extends JpaRepository<PriceRollup, Long> {
+    @Query(
+        "select priceRollup.bucketStart from PriceRollup priceRollup " +
+        "where priceRollup.scope = :scope and priceRollup.scopeId = :scopeId and priceRollup.granularity = :granularity " +
+        "and priceRollup.bucketStart in :bucketStarts"
+    )
+    List<Instant> findBucketStarts(
+        @Param("scope") RollupScope scope,
+        @Param("scopeId") Long scopeId,
+        @Param("granularity") RollupGranularity granularity,
+        @Param("bucketStarts") Collection<Instant> bucketStarts
+    );
+
+    /**
+     * Locks the buckets in {@code bucketStart} order, so that concurrent writers locking the same series of buckets in
+     * the same order never deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(
+        "select priceRollup from PriceRollup priceRollup " +
+        "where priceRollup.scope = :scope and priceRollup.scopeId = :scopeId and priceRollup.granularity = :granularity " +
+        "and priceRollup.bucketStart in :bucketStarts order by priceRollup.bucketStart"
+    )
+    List<PriceRollup> findBucketsForUpdate(
+        @Param("scope") RollupScope scope,
+        @Param("scopeId") Long scopeId,
+        @Param("granularity") RollupGranularity granularity,
+        @Param("bucketStarts") Collection<Instant> bucketStarts
+    );
+
+    @Query(
+        "select priceRollup from PriceRollup priceRollup " +
+        "where priceRollup.scope = :scope and priceRollup.scopeId = :scopeId " +
+        "and priceRollup.granularity <> com.ayham.testapp.domain.enumeration.RollupGranularity.HOUR " +
+        "and priceRollup.bucketStart in :bucketStarts"
+    )
+    List<PriceRollup> findCoarseBuckets(
+        @Param("scope") RollupScope scope,
+        @Param("scopeId") Long scopeId,
+        @Param("bucketStarts") Collection<Instant> bucketStarts
+    );
+
+    /**
+     * Combines the hours in {@code [hourFrom, hourTo)}, the days in {@code [dayFrom, dayTo)}, the months in
+     * {@code [monthFrom, monthTo)} and the years in {@code [yearFrom, yearTo)}.
+     */
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceRangeStatisticsDTO(" +
+        "sum(priceRollup.weightedSum), sum(priceRollup.coveredMillis), min(priceRollup.minPrice), max(priceRollup.maxPrice)) " +
+        "from PriceRollup priceRollup where priceRollup.scope = :scope and priceRollup.scopeId = :scopeId and (" +
+        "(priceRollup.granularity = com.ayham.testapp.domain.enumeration.RollupGranularity.HOUR " +
+        "and priceRollup.bucketStart >= :hourFrom and priceRollup.bucketStart < :hourTo) or " +
+        "(priceRollup.granularity = com.ayham.testapp.domain.enumeration.RollupGranularity.DAY " +
+        "and priceRollup.bucketStart >= :dayFrom and priceRollup.bucketStart < :dayTo) or " +
+        "(priceRollup.granularity = com.ayham.testapp.domain.enumeration.RollupGranularity.MONTH " +
+        "and priceRollup.bucketStart >= :monthFrom and priceRollup.bucketStart < :monthTo) or " +
+        "(priceRollup.granularity = com.ayham.testapp.domain.enumeration.RollupGranularity.YEAR " +
+        "and priceRollup.bucketStart >= :yearFrom and priceRollup.bucketStart < :yearTo))"
+    )
+    PriceRangeStatisticsDTO getStatistics(
+        @Param("scope") RollupScope scope,
+        @Param("scopeId") Long scopeId,
+        @Param("hourFrom") Instant hourFrom,
+        @Param("hourTo") Instant hourTo,
+        @Param("dayFrom") Instant dayFrom,
+        @Param("dayTo") Instant dayTo,
+        @Param("monthFrom") Instant monthFrom,
+        @Param("monthTo") Instant monthTo,
+        @Param("yearFrom") Instant yearFrom,
+        @Param("yearTo") Instant yearTo
+    );
+}
@@ -0,0 +1,86 @@
+package com.ayham.testapp.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC batches on the product_like join table and the like counts, for writes coalesced outside of a request.
+ */
+@Repository
+public class ProductLikeBatchRepository {
+
+    private static final String INSERT_LIKE =
+        "insert into product_like (user_id, product_id) select ?, ? " +
+        "where exists (select 1 from product where id = ?) " +
+        "and not exists (select 1 from product_like where user_id = ? and product_id = ?)";
+
+    private static final String DELETE_LIKE = "delete from product_like where user_id = ? and product_id = ?";
+
+    private static final String ADD_TO_LIKE_COUNT = "update product set like_count = like_count + ? where id = ?";
+
+    private static final String RECOUNT_LIKES =
+        "update product set like_count = (select count(*) from product_like where product_like.product_id = product.id) " +
+        "where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductLikeBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the likes that do not exist yet, skipping the products deleted in the meantime.
+     *
+     * @param likes pairs of product id and user id.
+     * @return per like, the number of rows inserted.
+     */
+    public int[] insertLikes(List<long[]> likes) {
+        List<Object[]> args = new ArrayList<>(likes.size());
+        for (long[] like : likes) {
+            args.add(new Object[] { like[1], like[0], like[0], like[1], like[0] });
+        }
+        return jdbcTemplate.batchUpdate(INSERT_LIKE, args);
+    }
+
+    /**
+     * @param likes pairs of product id and user id.
+     * @return per like, the number of rows deleted.
+     */
+    public int[] deleteLikes(List<long[]> likes) {
+        List<Object[]> args = new ArrayList<>(likes.size());
+        for (long[] like : likes) {
+            args.add(new Object[] { like[1], like[0] });
+        }
+        return jdbcTemplate.batchUpdate(DELETE_LIKE, args);
+    }
+
+    /**
+     * @param deltas the change of the like count, per product id.
+     */
+    public void addToLikeCounts(Map<Long, Long> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                args.add(new Object[] { delta, productId });
+            }
+        });
+        jdbcTemplate.batchUpdate(ADD_TO_LIKE_COUNT, args);
+    }
+
+    /**
+     * Recomputes the like counts from product_like, for the products whose changes were not counted.
+     *
+     * @param productIds the ids of the products.
+     */
+    public void recountLikes(Collection<Long> productIds) {
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            args.add(new Object[] { productId });
+        }
+        jdbcTemplate.batchUpdate(RECOUNT_LIKES, args);
+    }
+}
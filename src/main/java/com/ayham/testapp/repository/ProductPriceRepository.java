@@ -1,8 +1,20 @@
 package com.ayham.testapp.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import com.ayham.testapp.domain.ProductPrice;
-import java.sql.Date;
+import com.ayham.testapp.service.dto.PriceAnalyticsResultDTO;
+import com.ayham.testapp.service.dto.PriceIntervalDTO;
+import com.ayham.testapp.service.dto.PriceStatisticsDTO;
+import com.ayham.testapp.service.dto.ProductPriceExportDTO;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,9 +26,194 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ProductPriceRepository extends JpaRepository<ProductPrice, Long> {
     @Query(
-        "Select pp.price, pp.startDate, pp.endDate from Product p left join ProductPrice pp on p.id=pp.product.id where p.category.id =:categoryId"
+        "select new com.ayham.testapp.service.dto.PriceStatisticsDTO(avg(productPrice.price), count(productPrice)) " +
+        "from ProductPrice productPrice " +
+        "where productPrice.product.id = :productId and productPrice.startDate < :endDate and productPrice.endDate > :startDate"
+    )
+    PriceStatisticsDTO getStatisticsForProduct(
+        @Param("productId") Long productId,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceStatisticsDTO(avg(productPrice.price), count(productPrice)) " +
+        "from ProductPrice productPrice join productPrice.product product " +
+        "where product.category.id = :categoryId and productPrice.startDate < :endDate and productPrice.endDate > :startDate"
+    )
+    PriceStatisticsDTO getStatisticsForCategory(
+        @Param("categoryId") Long categoryId,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceStatisticsDTO(" +
+        "avg(productPrice.price), count(productPrice), min(productPrice.price), max(productPrice.price)) " +
+        "from ProductPrice productPrice join productPrice.product product, CategoryClosure closure " +
+        "where closure.id.ancestorId = :categoryId and product.category.id = closure.id.descendantId " +
+        "and productPrice.startDate < :endDate and productPrice.endDate > :startDate"
+    )
+    PriceStatisticsDTO getStatisticsForCategoryTree(
+        @Param("categoryId") Long categoryId,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceIntervalDTO(productPrice.price, productPrice.startDate, productPrice.endDate) " +
+        "from ProductPrice productPrice " +
+        "where productPrice.product.id = :productId and productPrice.price is not null " +
+        "and productPrice.startDate < productPrice.endDate and productPrice.startDate < :endDate and productPrice.endDate > :startDate " +
+        "order by productPrice.startDate"
+    )
+    Stream<PriceIntervalDTO> streamIntervalsForProduct(
+        @Param("productId") Long productId,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceIntervalDTO(productPrice.price, productPrice.startDate, productPrice.endDate) " +
+        "from ProductPrice productPrice join productPrice.product product " +
+        "where product.category.id = :categoryId and productPrice.price is not null " +
+        "and productPrice.startDate < productPrice.endDate and productPrice.startDate < :endDate and productPrice.endDate > :startDate " +
+        "order by productPrice.startDate"
+    )
+    Stream<PriceIntervalDTO> streamIntervalsForCategory(
+        @Param("categoryId") Long categoryId,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceIntervalDTO(productPrice.price, productPrice.startDate, productPrice.endDate) " +
+        "from ProductPrice productPrice join productPrice.product product, CategoryClosure closure " +
+        "where closure.id.ancestorId = :categoryId and product.category.id = closure.id.descendantId " +
+        "and productPrice.price is not null and productPrice.startDate < :endDate and productPrice.endDate > :startDate " +
+        "order by productPrice.startDate"
+    )
+    Stream<PriceIntervalDTO> streamIntervalsForCategoryTree(
+        @Param("categoryId") Long categoryId,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceIntervalDTO(productPrice.price, productPrice.startDate, productPrice.endDate) " +
+        "from ProductPrice productPrice " +
+        "where productPrice.product.id = :productId and productPrice.price is not null " +
+        "and productPrice.startDate < productPrice.endDate"
+    )
+    Stream<PriceIntervalDTO> streamAllIntervalsForProduct(@Param("productId") Long productId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceIntervalDTO(productPrice.price, productPrice.startDate, productPrice.endDate) " +
+        "from ProductPrice productPrice join productPrice.product product " +
+        "where product.category.id = :categoryId and productPrice.price is not null " +
+        "and productPrice.startDate < productPrice.endDate"
+    )
+    Stream<PriceIntervalDTO> streamAllIntervalsForCategory(@Param("categoryId") Long categoryId);
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceIntervalDTO(" +
+        "productPrice.id, productPrice.price, productPrice.startDate, productPrice.endDate) " +
+        "from ProductPrice productPrice " +
+        "where productPrice.product.id = :productId and productPrice.price is not null " +
+        "and productPrice.startDate < productPrice.endDate " +
+        "order by productPrice.startDate, productPrice.id"
+    )
+    List<PriceIntervalDTO> findIntervalsForProduct(@Param("productId") Long productId);
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceAnalyticsResultDTO(" +
+        "product.id, avg(productPrice.price), count(productPrice), min(productPrice.price), max(productPrice.price)) " +
+        "from ProductPrice productPrice join productPrice.product product " +
+        "where product.id in :productIds and productPrice.startDate < :endDate and productPrice.endDate > :startDate " +
+        "group by product.id"
+    )
+    List<PriceAnalyticsResultDTO> getStatisticsByProduct(
+        @Param("productIds") Collection<Long> productIds,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceAnalyticsResultDTO(" +
+        "product.category.id, avg(productPrice.price), count(productPrice), min(productPrice.price), max(productPrice.price)) " +
+        "from ProductPrice productPrice join productPrice.product product " +
+        "where product.category.id in :categoryIds and productPrice.startDate < :endDate and productPrice.endDate > :startDate " +
+        "group by product.category.id"
+    )
+    List<PriceAnalyticsResultDTO> getStatisticsByCategory(
+        @Param("categoryIds") Collection<Long> categoryIds,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.PriceAnalyticsResultDTO(" +
+        "closure.id.ancestorId, avg(productPrice.price), count(productPrice), min(productPrice.price), max(productPrice.price)) " +
+        "from ProductPrice productPrice join productPrice.product product, CategoryClosure closure " +
+        "where closure.id.ancestorId in :categoryIds and product.category.id = closure.id.descendantId " +
+        "and productPrice.startDate < :endDate and productPrice.endDate > :startDate " +
+        "group by closure.id.ancestorId"
+    )
+    List<PriceAnalyticsResultDTO> getStatisticsByCategoryTree(
+        @Param("categoryIds") Collection<Long> categoryIds,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate
+    );
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductPriceExportDTO(" +
+        "productPrice.id, productPrice.price, productPrice.startDate, productPrice.endDate, product.id) " +
+        "from ProductPrice productPrice left join productPrice.product product order by productPrice.id"
+    )
+    Stream<ProductPriceExportDTO> streamAllForExport();
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    @Query("select productPrice from ProductPrice productPrice")
+    List<ProductPrice> findAllWithEagerRelationships();
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    @Query("select productPrice from ProductPrice productPrice where productPrice.id = :id")
+    Optional<ProductPrice> findOneWithEagerRelationships(@Param("id") Long id);
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    Slice<ProductPrice> findSliceByOrderByIdAsc(Pageable pageable);
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    @Query("select productPrice from ProductPrice productPrice where productPrice.id > :id order by productPrice.id")
+    Slice<ProductPrice> findSliceAfterId(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    @Query(
+        "select productPrice from ProductPrice productPrice where productPrice.startDate is not null " +
+        "order by productPrice.startDate, productPrice.id"
+    )
+    Slice<ProductPrice> findSliceWithStartDate(Pageable pageable);
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    @Query(
+        "select productPrice from ProductPrice productPrice " +
+        "where productPrice.startDate > :startDate or (productPrice.startDate = :startDate and productPrice.id > :id) " +
+        "order by productPrice.startDate, productPrice.id"
+    )
+    Slice<ProductPrice> findSliceAfterStartDate(@Param("startDate") Instant startDate, @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(ProductPrice.SUMMARY_GRAPH)
+    @Query(
+        "select productPrice from ProductPrice productPrice where productPrice.startDate is null and productPrice.id > :id " +
+        "order by productPrice.id"
     )
-    List<ProductPrice> findProductPricesForCategory(@Param("categoryId") Long categoryId);
+    Slice<ProductPrice> findSliceWithoutStartDateAfterId(@Param("id") Long id, Pageable pageable);
 
-    List<ProductPrice> findByProductId(Long productId);
+    boolean existsByStartDateIsNull();
 }
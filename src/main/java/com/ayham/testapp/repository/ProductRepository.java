@@ -1,19 +1,34 @@
 package com.ayham.testapp.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.service.dto.ProductExportDTO;
+import com.ayham.testapp.service.dto.ProductSummaryDTO;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the Product entity.
+ * <p>
+ * The methods returning products declare their fetch plan, {@link Product#SUMMARY_GRAPH} for listings and
+ * {@link Product#DETAIL_GRAPH} for single products, so that each read is one query whatever the page holds.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     default Optional<Product> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -22,19 +37,182 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
         return this.findAllWithToOneRelationships();
     }
 
+    /**
+     * Pages the ids first, then fetches the relationships of that page only, so the cost is bounded by the page size and
+     * the pagination is never applied in memory over a collection fetch.
+     */
     default Page<Product> findAllWithEagerRelationships(Pageable pageable) {
-        return this.findAllWithToOneRelationships(pageable);
+        Page<Long> ids = this.findPageOfIds(pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+        Map<Long, Product> products = new HashMap<>();
+        this.findAllWithToOneRelationships(ids.getContent()).forEach(product -> products.put(product.getId(), product));
+        this.fetchProductPrices(ids.getContent());
+        return ids.map(products::get);
     }
 
-    @Query(
-        value = "select distinct product from Product product left join fetch product.userLikes",
-        countQuery = "select count(distinct product) from Product product"
-    )
-    Page<Product> findAllWithToOneRelationships(Pageable pageable);
+    @Query(value = "select product.id from Product product", countQuery = "select count(product) from Product product")
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    @EntityGraph(Product.DETAIL_GRAPH)
+    @Query("select distinct product from Product product where product.id in :ids")
+    List<Product> findAllWithToOneRelationships(@Param("ids") Collection<Long> ids);
 
-    @Query("select distinct product from Product product left join fetch product.userLikes")
+    /**
+     * Initializes the productPrices of products already loaded in the persistence context, in a query of its own to
+     * avoid the cartesian product with their likes.
+     */
+    @Query("select distinct product from Product product left join fetch product.productPrices where product.id in :ids")
+    List<Product> fetchProductPrices(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(Product.DETAIL_GRAPH)
+    @Query("select distinct product from Product product")
     List<Product> findAllWithToOneRelationships();
 
-    @Query("select product from Product product left join fetch product.userLikes where product.id =:id")
+    @EntityGraph(Product.DETAIL_GRAPH)
+    @Query("select product from Product product where product.id =:id")
     Optional<Product> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Override
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    Page<Product> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    List<Product> findAll(Specification<Product> specification);
+
+    @Override
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    Page<Product> findAll(Specification<Product> specification, Pageable pageable);
+
+    @Query("select product.category.id from Product product where product.id = :id")
+    Optional<Long> findCategoryId(@Param("id") Long id);
+
+    @Query("select product.id from Product product where product.id in :ids and product.owner.id = :ownerId")
+    List<Long> findIdsOwnedBy(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
+
+    @Query("select product.id from Product product")
+    List<Long> findAllIds();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductSummaryDTO(product.id, product.title, product.status, product.likeCount) " +
+        "from Product product"
+    )
+    Stream<ProductSummaryDTO> streamAllSummaries();
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductSummaryDTO(product.id, product.title, product.status, product.likeCount) " +
+        "from Product product where product.id in :ids"
+    )
+    List<ProductSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductSummaryDTO(product.id, product.title, product.status, product.likeCount) " +
+        "from Product product where product.owner.id = :userId and product.id > :afterId order by product.id"
+    )
+    Slice<ProductSummaryDTO> findSummariesOwnedBy(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductSummaryDTO(product.id, product.title, product.status, product.likeCount) " +
+        "from User user join user.likes product where user.id = :userId and product.id > :afterId order by product.id"
+    )
+    Slice<ProductSummaryDTO> findSummariesLikedBy(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select coalesce(max(product.id), 0) from Product product")
+    long findMaxId();
+
+    @Query("select coalesce(sum(product.id), 0) from Product product")
+    long findIdSum();
+
+    /**
+     * @return whether the product is owned by the user, or empty if the product does not exist.
+     */
+    @Query(
+        "select case when owner.id = :userId then true else false end " +
+        "from Product product left join product.owner owner where product.id = :id"
+    )
+    Optional<Boolean> isOwnedBy(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Adds a like unless it already exists. A duplicate inserted concurrently is not seen by the check, and is rejected by
+     * the primary key of product_like with a {@link org.springframework.dao.DataIntegrityViolationException} instead.
+     *
+     * @return 1 if the like was added, 0 if it already existed.
+     */
+    @Modifying
+    @Query(
+        value = "insert into product_like (user_id, product_id) select :userId, :id " +
+        "where not exists (select 1 from product_like where user_id = :userId and product_id = :id)",
+        nativeQuery = true
+    )
+    int insertLike(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * @return 1 if the like was removed, 0 if there was none.
+     */
+    @Modifying
+    @Query(value = "delete from product_like where user_id = :userId and product_id = :id", nativeQuery = true)
+    int deleteLike(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("update Product product set product.likeCount = product.likeCount + :delta where product.id = :id")
+    int addToLikeCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * Recomputes, from product_like, the like counts of the products in {@code (fromId, toId]} that drifted.
+     *
+     * @return the number of products repaired.
+     */
+    @Modifying
+    @Query(
+        value = "update product set like_count = (select count(*) from product_like where product_like.product_id = product.id) " +
+        "where product.id > :fromId and product.id <= :toId " +
+        "and like_count <> (select count(*) from product_like where product_like.product_id = product.id)",
+        nativeQuery = true
+    )
+    int reconcileLikeCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductExportDTO(" +
+        "product.id, product.title, product.description, product.status, category.id, owner.id) " +
+        "from Product product left join product.category category left join product.owner owner order by product.id"
+    )
+    Stream<ProductExportDTO> streamAllForExport();
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductExportDTO(" +
+        "product.id, product.title, product.description, product.status, category.id, owner.id) " +
+        "from Product product left join product.category category left join product.owner owner " +
+        "where product.id > :fromId and product.id <= :toId"
+    )
+    List<ProductExportDTO> findExportRowsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query(
+        "select new com.ayham.testapp.service.dto.ProductExportDTO(" +
+        "product.id, product.title, product.description, product.status, category.id, owner.id) " +
+        "from Product product left join product.category category left join product.owner owner " +
+        "where product.id in :ids"
+    )
+    List<ProductExportDTO> findExportRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    Slice<Product> findSliceByOrderByIdAsc(Pageable pageable);
+
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    @Query("select product from Product product where product.id > :id order by product.id")
+    Slice<Product> findSliceAfterId(@Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    Slice<Product> findSliceByOrderByTitleAscIdAsc(Pageable pageable);
+
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    @Query(
+        "select product from Product product " +
+        "where product.title > :title or (product.title = :title and product.id > :id) " +
+        "order by product.title, product.id"
+    )
+    Slice<Product> findSliceAfterTitle(@Param("title") String title, @Param("id") Long id, Pageable pageable);
 }
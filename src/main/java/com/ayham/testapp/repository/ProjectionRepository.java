@@ -0,0 +1,97 @@
+package com.ayham.testapp.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Tuple queries selecting only the requested columns of an entity straight into DTOs, so that no entity is loaded in the
+ * persistence context.
+ */
+@Repository
+public class ProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    public ProjectionRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Selects a page of DTOs.
+     *
+     * @param selection the selectable fields of the entity.
+     * @param fields the names of the selected fields, all known to the selection.
+     * @param specification the rows to select.
+     * @param pageable the pagination information.
+     * @param count counts the rows, only called when the page alone does not tell the total.
+     * @return the page of DTOs.
+     */
+    public <E, D> Page<D> findAll(
+        FieldSelection<E, D> selection,
+        Set<String> fields,
+        Specification<E> specification,
+        Pageable pageable,
+        LongSupplier count
+    ) {
+        TypedQuery<Tuple> query = createQuery(selection, fields, specification, pageable);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<D> content = query.getResultList().stream().map(tuple -> selection.toDto(tuple, fields)).collect(Collectors.toList());
+        return PageableExecutionUtils.getPage(content, pageable, count);
+    }
+
+    /**
+     * Selects a single DTO.
+     *
+     * @param selection the selectable fields of the entity.
+     * @param fields the names of the selected fields, all known to the selection.
+     * @param specification the row to select.
+     * @return the DTO, if the row exists.
+     */
+    public <E, D> Optional<D> findOne(FieldSelection<E, D> selection, Set<String> fields, Specification<E> specification) {
+        return createQuery(selection, fields, specification, Pageable.unpaged())
+            .setMaxResults(1)
+            .getResultList()
+            .stream()
+            .findFirst()
+            .map(tuple -> selection.toDto(tuple, fields));
+    }
+
+    private <E, D> TypedQuery<Tuple> createQuery(
+        FieldSelection<E, D> selection,
+        Set<String> fields,
+        Specification<E> specification,
+        Pageable pageable
+    ) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<E> root = query.from(selection.getEntityClass());
+        query.multiselect(selection.select(root, fields));
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        }
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ayham.testapp.repository;
+
+import com.ayham.testapp.domain.RevokedToken;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the RevokedToken entity.
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(Instant revokedAt, Instant expiresAt);
+
+    @Modifying
+    @Query("delete from RevokedToken revokedToken where revokedToken.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
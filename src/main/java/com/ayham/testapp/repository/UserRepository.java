@@ -15,8 +15,6 @@ import org.springframework.stereotype.Repository;
 public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByUsername(String username);
 
-    List<User> findByToken(String token);
-
     @Query("select user from User user left join fetch user.likes where user.id =:id")
     Optional<User> findOne(@Param("id") Long id);
 }
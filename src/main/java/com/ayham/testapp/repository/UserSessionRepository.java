@@ -0,0 +1,36 @@
+package com.ayham.testapp.repository;
+
+import com.ayham.testapp.domain.UserSession;
+import com.ayham.testapp.security.UserPrincipal;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the UserSession entity.
+ */
+@Repository
+public interface UserSessionRepository extends JpaRepository<UserSession, String> {
+    @Query(
+        "select new com.ayham.testapp.security.UserPrincipal(user.id, user.username) from UserSession session, User user " +
+        "where session.token = :token and session.expiresAt > :now and user.id = session.userId"
+    )
+    Optional<UserPrincipal> findPrincipal(@Param("token") String token, @Param("now") Instant now);
+
+    @Modifying
+    @Query(
+        "update UserSession session set session.expiresAt = :expiresAt " +
+        "where session.token = :token and session.expiresAt < :extendBefore"
+    )
+    int extend(@Param("token") String token, @Param("expiresAt") Instant expiresAt, @Param("extendBefore") Instant extendBefore);
+
+    @Modifying
+    @Query("delete from UserSession session where session.token = :token")
+    int deleteByToken(@Param("token") String token);
+
+    @Modifying
+    @Query("delete from UserSession session where session.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,14 @@
+package com.ayham.testapp.security;
+
+/**
+ * Constants for Spring Security authorities.
+ */
+public final class AuthoritiesConstants {
+
+    /**
+     * Granted to the users listed in {@code application.security.admin-usernames}.
+     */
+    public static final String ADMIN = "ROLE_ADMIN";
+
+    private AuthoritiesConstants() {}
+}
@@ -0,0 +1,67 @@
+package com.ayham.testapp.security;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.domain.UserSession;
+import com.ayham.testapp.repository.UserSessionRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link TokenStore} keeping the sessions in the {@code user_session} table, shared by all nodes.
+ * <p>
+ * To avoid a write on every request, the expiry is only pushed back once less than half of the idle timeout is left.
+ */
+@Component
+@Transactional
+@ConditionalOnProperty(prefix = "application.session", name = "store", havingValue = "database")
+public class DatabaseTokenStore implements TokenStore {
+
+    private final Logger log = LoggerFactory.getLogger(DatabaseTokenStore.class);
+
+    private final UserSessionRepository userSessionRepository;
+
+    private final Duration idleTimeout;
+
+    public DatabaseTokenStore(UserSessionRepository userSessionRepository, ApplicationProperties applicationProperties) {
+        this.userSessionRepository = userSessionRepository;
+        this.idleTimeout = Duration.ofSeconds(applicationProperties.getSession().getIdleTimeoutSeconds());
+    }
+
+    @Override
+    public void store(String token, UserPrincipal principal) {
+        Instant now = Instant.now();
+        UserSession session = new UserSession().token(token).userId(principal.getId()).createdAt(now).expiresAt(now.plus(idleTimeout));
+        userSessionRepository.save(session);
+    }
+
+    @Override
+    public Optional<UserPrincipal> find(String token) {
+        Instant now = Instant.now();
+        Optional<UserPrincipal> principal = userSessionRepository.findPrincipal(token, now);
+        if (principal.isPresent()) {
+            userSessionRepository.extend(token, now.plus(idleTimeout), now.plus(idleTimeout.dividedBy(2)));
+        }
+        return principal;
+    }
+
+    @Override
+    public boolean remove(String token) {
+        return userSessionRepository.deleteByToken(token) > 0;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.session.sweep-delay-ms:60000}")
+    public void sweep() {
+        int removed = userSessionRepository.deleteExpired(Instant.now());
+        if (removed > 0) {
+            log.debug("Removed {} expired sessions", removed);
+        }
+    }
+}
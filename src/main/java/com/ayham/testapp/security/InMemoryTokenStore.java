@@ -0,0 +1,102 @@
+package com.ayham.testapp.security;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link TokenStore} keeping the sessions in the memory of this node, for single node deployments.
+ * <p>
+ * Sessions are spread over {@code application.session.stripes} maps by token hash, so the sweep walks one stripe at a
+ * time instead of a single large map shared by every request.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.session", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenStore implements TokenStore {
+
+    private final Logger log = LoggerFactory.getLogger(InMemoryTokenStore.class);
+
+    private final Map<String, Session>[] stripes;
+
+    private final int mask;
+
+    private final long idleTimeoutMillis;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryTokenStore(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Session properties = applicationProperties.getSession();
+        int size = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1) << 1);
+        this.stripes = new Map[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = size - 1;
+        this.idleTimeoutMillis = properties.getIdleTimeoutSeconds() * 1000;
+        log.debug("In-memory session store with {} stripes and an idle timeout of {}s", size, properties.getIdleTimeoutSeconds());
+    }
+
+    @Override
+    public void store(String token, UserPrincipal principal) {
+        stripe(token).put(token, new Session(principal, System.currentTimeMillis() + idleTimeoutMillis));
+    }
+
+    @Override
+    public Optional<UserPrincipal> find(String token) {
+        Session session = stripe(token).get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        if (session.expiresAt <= now) {
+            stripe(token).remove(token, session);
+            return Optional.empty();
+        }
+        session.expiresAt = now + idleTimeoutMillis;
+        return Optional.of(session.principal);
+    }
+
+    @Override
+    public boolean remove(String token) {
+        return stripe(token).remove(token) != null;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.session.sweep-delay-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map<String, Session> stripe : stripes) {
+            for (Map.Entry<String, Session> entry : stripe.entrySet()) {
+                if (entry.getValue().expiresAt <= now && stripe.remove(entry.getKey(), entry.getValue())) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("Removed {} expired sessions", removed);
+        }
+    }
+
+    private Map<String, Session> stripe(String token) {
+        int h = token.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Session {
+
+        private final UserPrincipal principal;
+
+        private volatile long expiresAt;
+
+        private Session(UserPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
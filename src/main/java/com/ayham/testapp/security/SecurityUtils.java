@@ -0,0 +1,35 @@
+package com.ayham.testapp.security;
+
+import java.util.Optional;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Utility class for Spring Security.
+ */
+public final class SecurityUtils {
+
+    private SecurityUtils() {}
+
+    /**
+     * Get the principal of the current user.
+     *
+     * @return the principal of the current user.
+     */
+    public static Optional<UserPrincipal> getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            return Optional.of((UserPrincipal) authentication.getPrincipal());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the id of the current user.
+     *
+     * @return the id of the current user.
+     */
+    public static Optional<Long> getCurrentUserId() {
+        return getCurrentUser().map(UserPrincipal::getId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ayham.testapp.security;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+import com.ayham.testapp.service.UserService;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Resolves the {@code Authorization} token once per request and exposes the owning user as a {@link UserPrincipal}
+ * in the {@link org.springframework.security.core.context.SecurityContext}. The users listed as administrators are granted
+ * {@link AuthoritiesConstants#ADMIN}.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES = Collections.singletonList(
+        new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN)
+    );
+
+    private final UserService userService;
+
+    private final Set<String> adminUsernames;
+
+    public TokenAuthenticationFilter(UserService userService, Collection<String> adminUsernames) {
+        this.userService = userService;
+        this.adminUsernames = new HashSet<>(adminUsernames);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String token = request.getHeader(AUTHORIZATION);
+        if (StringUtils.hasText(token)) {
+            userService
+                .authenticate(token)
+                .ifPresent(principal ->
+                    SecurityContextHolder
+                        .getContext()
+                        .setAuthentication(new UsernamePasswordAuthenticationToken(principal, token, getAuthorities(principal)))
+                );
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private List<GrantedAuthority> getAuthorities(UserPrincipal principal) {
+        return adminUsernames.contains(principal.getUsername()) ? ADMIN_AUTHORITIES : Collections.emptyList();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ayham.testapp.security;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded token to user principal cache sitting in front of the token lookup done on every authenticated request.
+ * <p>
+ * Only positive lookups are cached, so an unknown token always goes back to the database. Entries expire after
+ * {@code application.token-cache.time-to-live-seconds} and are evicted explicitly on logout. With the database session
+ * store, a logout on one node cannot evict the entries of the others, so the time to live is capped at
+ * {@code application.token-cache.shared-store-time-to-live-seconds}.
+ */
+@Component
+public class TokenCache {
+
+    public static final String CACHE_NAME = "tokenCache";
+
+    private final Logger log = LoggerFactory.getLogger(TokenCache.class);
+
+    private final Cache<String, UserPrincipal> cache;
+
+    public TokenCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.TokenCache properties = applicationProperties.getTokenCache();
+        if (properties.isEnabled()) {
+            long timeToLiveSeconds = properties.getTimeToLiveSeconds();
+            if (applicationProperties.getSession().getStore() == ApplicationProperties.Session.Store.DATABASE) {
+                // A logout on another node only evicts its own cache, so entries must not outlive this bound
+                timeToLiveSeconds = Math.min(timeToLiveSeconds, properties.getSharedStoreTimeToLiveSeconds());
+            }
+            log.debug("Creating token cache with a TTL of {}s and at most {} entries", timeToLiveSeconds, properties.getMaxEntries());
+            this.cache =
+                Caffeine
+                    .newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(timeToLiveSeconds))
+                    .maximumSize(properties.getMaxEntries())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            log.debug("Token cache is disabled");
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Returns the user owning the token, loading it on a cache miss.
+     *
+     * @param token the token to resolve.
+     * @param loader the lookup used when the token is not cached.
+     * @return the user principal, or empty if the token is unknown.
+     */
+    public Optional<UserPrincipal> getPrincipal(String token, Function<String, Optional<UserPrincipal>> loader) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        if (cache == null) {
+            return loader.apply(token);
+        }
+        return Optional.ofNullable(cache.get(token, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Removes the token from the cache, so it is rejected on the next request.
+     *
+     * @param token the token to evict.
+     */
+    public void evict(String token) {
+        if (cache != null && token != null) {
+            cache.invalidate(token);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ayham.testapp.security;
+
+import java.util.Optional;
+
+/**
+ * Storage of the opaque access tokens issued at login.
+ * <p>
+ * Sessions use a sliding expiry: every successful lookup pushes the expiry back by
+ * {@code application.session.idle-timeout-seconds}. Expired sessions are removed by a scheduled sweep.
+ */
+public interface TokenStore {
+    /**
+     * Stores a new session.
+     *
+     * @param token the token issued to the user.
+     * @param principal the user owning the token.
+     */
+    void store(String token, UserPrincipal principal);
+
+    /**
+     * Looks up a session and extends its expiry.
+     *
+     * @param token the token to look up.
+     * @return the user owning the token, or empty if the token is unknown or expired.
+     */
+    Optional<UserPrincipal> find(String token);
+
+    /**
+     * Removes a session.
+     *
+     * @param token the token to remove.
+     * @return true if the session existed.
+     */
+    boolean remove(String token);
+
+    /**
+     * Removes all expired sessions.
+     */
+    void sweep();
+}
@@ -0,0 +1,50 @@
+package com.ayham.testapp.security;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The authenticated user, resolved once per request from its token.
+ */
+public final class UserPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String username;
+
+    public UserPrincipal(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserPrincipal)) {
+            return false;
+        }
+        return Objects.equals(id, ((UserPrincipal) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ayham.testapp.security.jwt;
+
+import com.ayham.testapp.domain.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import java.security.Key;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Issues and verifies the signed access tokens used when {@code application.security.token-mode} is {@code signed}.
+ */
+@Component
+public class TokenProvider {
+
+    public static final String USERNAME_KEY = "username";
+
+    private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
+
+    private final Key key;
+
+    private final JwtParser jwtParser;
+
+    private final long tokenValidityInMilliseconds;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties) {
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwt.getBase64Secret()));
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.tokenValidityInMilliseconds = 1000 * jwt.getTokenValidityInSeconds();
+    }
+
+    /**
+     * Creates a token for the user.
+     *
+     * @param user the user to issue the token for.
+     * @return the compact signed token.
+     */
+    public String createToken(User user) {
+        long now = System.currentTimeMillis();
+        return Jwts
+            .builder()
+            .setId(UUID.randomUUID().toString())
+            .setSubject(user.getId().toString())
+            .claim(USERNAME_KEY, user.getUsername())
+            .setIssuedAt(new Date(now))
+            .setExpiration(new Date(now + tokenValidityInMilliseconds))
+            .signWith(key, SignatureAlgorithm.HS512)
+            .compact();
+    }
+
+    /**
+     * Verifies the signature and expiry of the token.
+     *
+     * @param token the token to verify.
+     * @return the claims of the token, or empty if it is not valid.
+     */
+    public Optional<Claims> parseToken(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(jwtParser.parseClaimsJws(token).getBody());
+        } catch (ExpiredJwtException e) {
+            log.trace("Expired token", e);
+        } catch (UnsupportedJwtException | MalformedJwtException | SignatureException e) {
+            log.trace("Invalid token", e);
+        } catch (IllegalArgumentException e) {
+            log.error("Token validation error {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ayham.testapp.security.jwt;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.domain.RevokedToken;
+import com.ayham.testapp.repository.RevokedTokenRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps track of signed tokens revoked before their expiry.
+ * <p>
+ * Revocations are persisted in the {@code revoked_token} table and mirrored in memory as one {@link BloomFilter} per
+ * expiry bucket. A token whose bucket filter does not contain its id is accepted without touching the database, only
+ * filter hits are confirmed against the table. Once every token of a bucket has expired, the whole bucket is dropped.
+ * The table is polled periodically so revocations made by other nodes are picked up as well.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final ApplicationProperties.Security properties;
+
+    private final ConcurrentSkipListMap<Long, BloomFilter> buckets = new ConcurrentSkipListMap<>();
+
+    private volatile Instant lastRefresh = Instant.EPOCH;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository, ApplicationProperties applicationProperties) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.properties = applicationProperties.getSecurity();
+    }
+
+    /**
+     * Revokes a token until it expires.
+     *
+     * @param jti the id of the token.
+     * @param expiresAt the expiry of the token.
+     */
+    public void revoke(String jti, Instant expiresAt) {
+        log.debug("Revoking token {} expiring at {}", jti, expiresAt);
+        revokedTokenRepository.save(new RevokedToken().jti(jti).expiresAt(expiresAt).revokedAt(Instant.now()));
+        remember(jti, expiresAt);
+    }
+
+    /**
+     * Checks whether a token was revoked.
+     *
+     * @param jti the id of the token.
+     * @param expiresAt the expiry of the token.
+     * @return true if the token was revoked.
+     */
+    public boolean isRevoked(String jti, Instant expiresAt) {
+        BloomFilter filter = buckets.get(bucketOf(expiresAt));
+        if (filter == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        // either revoked or a false positive of the filter
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    /**
+     * @return the memory used by the bucket filters in bytes.
+     */
+    public long sizeInBytes() {
+        return buckets.values().stream().mapToLong(BloomFilter::sizeInBytes).sum();
+    }
+
+    /**
+     * Loads revocations made since the last run, drops expired buckets and purges expired rows.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${application.security.revocation.refresh-delay-ms:30000}")
+    @Transactional
+    public void refresh() {
+        if (properties.getTokenMode() != ApplicationProperties.Security.TokenMode.SIGNED) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<RevokedToken> revokedTokens = revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(
+            lastRefresh.minus(REFRESH_OVERLAP),
+            now
+        );
+        revokedTokens.forEach(revokedToken -> remember(revokedToken.getJti(), revokedToken.getExpiresAt()));
+        lastRefresh = now;
+
+        buckets.headMap(bucketOf(now)).clear();
+        int purged = revokedTokenRepository.deleteExpired(now);
+        log.debug("Loaded {} revoked tokens, purged {} expired ones", revokedTokens.size(), purged);
+    }
+
+    private void remember(String jti, Instant expiresAt) {
+        ApplicationProperties.Security.Revocation revocation = properties.getRevocation();
+        buckets
+            .computeIfAbsent(
+                bucketOf(expiresAt),
+                bucket -> new BloomFilter(revocation.getExpectedInsertions(), revocation.getFalsePositiveProbability())
+            )
+            .put(jti);
+    }
+
+    private long bucketOf(Instant instant) {
+        long bucketSeconds = properties.getRevocation().getBucketSeconds();
+        return Math.floorDiv(instant.getEpochSecond(), bucketSeconds) * bucketSeconds;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Application security utilities.
+ */
+package com.ayham.testapp.security;
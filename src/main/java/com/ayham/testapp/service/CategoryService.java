@@ -1,9 +1,11 @@
 package com.ayham.testapp.service;
 
 import com.ayham.testapp.domain.Category;
+import com.ayham.testapp.service.dto.CategoryDTO;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link Category}.
@@ -41,6 +43,33 @@ public interface CategoryService {
      */
     Page<Category> findAll(Pageable pageable);
 
+    /**
+     * Get the categories following a position in id order, without counting them.
+     *
+     * @param afterId the id of the last category of the previous slice, or null for the first slice.
+     * @param size the maximum number of categories.
+     * @return the slice of entities.
+     */
+    Slice<Category> findSliceOrderById(Long afterId, int size);
+
+    /**
+     * Get the selected fields of all the categories, without loading the entities.
+     *
+     * @param fields the comma separated fields to select, the id being always selected.
+     * @param pageable the pagination information.
+     * @return the list of DTOs.
+     */
+    Page<CategoryDTO> findAllFields(String fields, Pageable pageable);
+
+    /**
+     * Get the selected fields of the "id" category, without loading the entity.
+     *
+     * @param id the id of the entity.
+     * @param fields the comma separated fields to select, the id being always selected.
+     * @return the DTO.
+     */
+    Optional<CategoryDTO> findOneFields(Long id, String fields);
+
     /**
      * Get the "id" category.
      *
@@ -0,0 +1,10 @@
+package com.ayham.testapp.service.Exception;
+
+public class CategoryCycleException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CategoryCycleException() {
+        super("A category can not be moved under itself or one of its subcategories");
+    }
+}
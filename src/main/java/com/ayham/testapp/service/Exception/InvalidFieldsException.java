@@ -0,0 +1,19 @@
+package com.ayham.testapp.service.Exception;
+
+import java.util.Collection;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String entityName;
+
+    public InvalidFieldsException(String entityName, Collection<String> unknownFields) {
+        super("Unknown fields " + unknownFields);
+        this.entityName = entityName;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+}
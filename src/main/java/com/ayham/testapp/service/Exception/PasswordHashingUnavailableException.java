@@ -0,0 +1,10 @@
+package com.ayham.testapp.service.Exception;
+
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingUnavailableException() {
+        super("Too many concurrent authentications, please retry later");
+    }
+}
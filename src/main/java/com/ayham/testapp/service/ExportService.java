@@ -0,0 +1,52 @@
+package com.ayham.testapp.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service Interface for exporting whole tables, one row at a time.
+ */
+public interface ExportService {
+    /**
+     * The formats of an export.
+     */
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Writes all the productPrices, ordered by id.
+     *
+     * @param format the format of the rows.
+     * @param outputStream the stream to write to, left open.
+     * @throws IOException if the stream cannot be written.
+     */
+    void exportProductPrices(Format format, OutputStream outputStream) throws IOException;
+
+    /**
+     * Writes all the products, ordered by id.
+     *
+     * @param format the format of the rows.
+     * @param outputStream the stream to write to, left open.
+     * @throws IOException if the stream cannot be written.
+     */
+    void exportProducts(Format format, OutputStream outputStream) throws IOException;
+}
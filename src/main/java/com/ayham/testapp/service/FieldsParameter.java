@@ -0,0 +1,50 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.repository.FieldSelection;
+import com.ayham.testapp.service.Exception.InvalidFieldsException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code fields} request parameter against the fields a {@link FieldSelection} declares.
+ */
+public final class FieldsParameter {
+
+    private static final String ID = "id";
+
+    private FieldsParameter() {}
+
+    /**
+     * Parses a comma separated list of fields. The id is always selected, and every field when the list is empty.
+     *
+     * @param selection the selectable fields of the entity.
+     * @param entityName the name of the entity, reported with the unknown fields.
+     * @param fieldList the value of the {@code fields} parameter, may be null.
+     * @return the names of the selected fields.
+     * @throws InvalidFieldsException if a field is unknown.
+     */
+    public static Set<String> parse(FieldSelection<?, ?> selection, String entityName, String fieldList) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(ID);
+        List<String> unknown = new ArrayList<>();
+        if (fieldList != null) {
+            for (String name : fieldList.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (selection.hasField(trimmed)) {
+                    names.add(trimmed);
+                } else {
+                    unknown.add(trimmed);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new InvalidFieldsException(entityName, unknown);
+        }
+        return names.size() > 1 ? names : selection.getFieldNames();
+    }
+}
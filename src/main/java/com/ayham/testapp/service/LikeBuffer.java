@@ -0,0 +1,298 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.repository.ProductLikeBatchRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer of the likes, for products liked faster than their row and the join table can take.
+ * <p>
+ * Likes and unlikes are kept per (product, user) in {@code application.like-buffer.shards} maps, the last one winning,
+ * so a like followed by an unlike is written as a single, idempotent delete. The buffer is flushed every
+ * {@code application.like-buffer.flush-delay-ms} and on shutdown, in JDBC batches, the like counts being moved by the
+ * rows actually inserted or deleted. Once it holds {@code application.like-buffer.max-entries}, likes of the pairs it does
+ * not hold are written directly again, between flushes.
+ * <p>
+ * A direct write is ordered against the flushes by the lock of its shard only: it is written while its pair is neither
+ * buffered nor being flushed, and buffered behind the flush otherwise.
+ */
+@Component
+public class LikeBuffer {
+
+    private final Logger log = LoggerFactory.getLogger(LikeBuffer.class);
+
+    private final ProductLikeBatchRepository productLikeBatchRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long maxEntries;
+
+    private final Shard[] shards;
+
+    private final int mask;
+
+    private final LongAdder depth = new LongAdder();
+
+    private final LongAdder buffered = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final Timer flushTimer;
+
+    public LikeBuffer(
+        ProductLikeBatchRepository productLikeBatchRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.LikeBuffer properties = applicationProperties.getLikeBuffer();
+        this.productLikeBatchRepository = productLikeBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = properties.isEnabled();
+        this.batchSize = properties.getBatchSize();
+        this.maxEntries = properties.getMaxEntries();
+        int size = Integer.highestOneBit(Math.max(1, properties.getShards() - 1) << 1);
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        this.mask = size - 1;
+        Gauge.builder("likes.buffer.depth", depth, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("likes.buffer.events", buffered, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("likes.buffer.coalesced", coalesced, LongAdder::sum).register(meterRegistry);
+        this.flushTimer = Timer.builder("likes.buffer.flush").register(meterRegistry);
+        log.debug("Like buffer {} with {} shards", enabled ? "enabled" : "disabled", size);
+    }
+
+    /**
+     * @return true if likes are buffered, and written behind.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers a like or an unlike.
+     *
+     * @param productId the id of the product.
+     * @param userId the id of the user.
+     * @param liked true for a like, false for an unlike.
+     * @return false if the buffer is disabled or full, and the like must be written directly.
+     */
+    public boolean offer(long productId, long userId, boolean liked) {
+        if (!enabled || depth.sum() >= maxEntries) {
+            return false;
+        }
+        Key key = new Key(productId, userId);
+        if (shard(key).events.put(key, liked) == null) {
+            depth.increment();
+        } else {
+            coalesced.increment();
+        }
+        buffered.increment();
+        return true;
+    }
+
+    /**
+     * Writes a like or an unlike that the buffer did not take. It replaces the buffered event of the same pair instead if
+     * there is one, and is buffered behind the flush writing the pair if there is one, so that an older event flushed or
+     * put back later can not overwrite it. Otherwise it is written holding the lock of its shard, which only holds back the
+     * flush from draining that shard.
+     *
+     * @param productId the id of the product.
+     * @param userId the id of the user.
+     * @param liked true for a like, false for an unlike.
+     * @param write writes the like directly, in a transaction of its own.
+     */
+    public void writeDirectly(long productId, long userId, boolean liked, Runnable write) {
+        if (!enabled) {
+            write.run();
+            return;
+        }
+        Key key = new Key(productId, userId);
+        Shard shard = shard(key);
+        synchronized (shard) {
+            if (shard.events.replace(key, liked) != null) {
+                coalesced.increment();
+                buffered.increment();
+                return;
+            }
+            if (shard.flushing.contains(key)) {
+                shard.events.put(key, liked);
+                depth.increment();
+                buffered.increment();
+                return;
+            }
+            write.run();
+        }
+    }
+
+    /**
+     * Writes the buffered likes. Likes buffered while flushing are left for the next flush, and a failed flush puts its
+     * likes back unless they were overwritten in the meantime. The pairs drained from a shard are marked as being flushed
+     * until the flush completes, under the lock of the shard.
+     */
+    @Scheduled(fixedDelayString = "${application.like-buffer.flush-delay-ms:1000}")
+    public synchronized void flush() {
+        if (depth.sum() == 0) {
+            return;
+        }
+        List<long[]> likes = new ArrayList<>();
+        List<long[]> unlikes = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (Map.Entry<Key, Boolean> entry : shard.events.entrySet()) {
+                    Key key = entry.getKey();
+                    Boolean liked = entry.getValue();
+                    if (shard.events.remove(key, liked)) {
+                        depth.decrement();
+                        shard.flushing.add(key);
+                        (liked ? likes : unlikes).add(new long[] { key.productId, key.userId });
+                    }
+                }
+            }
+        }
+        long start = System.nanoTime();
+        boolean flushed = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(likes, unlikes));
+            flushed = true;
+            log.debug("Flushed {} likes and {} unlikes", likes.size(), unlikes.size());
+        } catch (RuntimeException e) {
+            log.error("Could not flush {} likes and {} unlikes, retrying on the next flush", likes.size(), unlikes.size(), e);
+        } finally {
+            complete(likes, true, !flushed);
+            complete(unlikes, false, !flushed);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The like counts are moved by the rows inserted or deleted, and recounted for the products whose batch rows the driver
+     * reported as {@link Statement#SUCCESS_NO_INFO}.
+     */
+    private void write(List<long[]> likes, List<long[]> unlikes) {
+        Map<Long, Long> deltas = new HashMap<>();
+        Set<Long> uncounted = new HashSet<>();
+        for (int from = 0; from < likes.size(); from += batchSize) {
+            List<long[]> batch = likes.subList(from, Math.min(likes.size(), from + batchSize));
+            addDeltas(deltas, uncounted, batch, productLikeBatchRepository.insertLikes(batch), 1);
+        }
+        for (int from = 0; from < unlikes.size(); from += batchSize) {
+            List<long[]> batch = unlikes.subList(from, Math.min(unlikes.size(), from + batchSize));
+            addDeltas(deltas, uncounted, batch, productLikeBatchRepository.deleteLikes(batch), -1);
+        }
+        deltas.keySet().removeAll(uncounted);
+        productLikeBatchRepository.addToLikeCounts(deltas);
+        productLikeBatchRepository.recountLikes(uncounted);
+    }
+
+    private static void addDeltas(Map<Long, Long> deltas, Set<Long> uncounted, List<long[]> batch, int[] updateCounts, long sign) {
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                uncounted.add(batch.get(i)[0]);
+            } else if (updateCounts[i] > 0) {
+                deltas.merge(batch.get(i)[0], sign * updateCounts[i], Long::sum);
+            }
+        }
+    }
+
+    private void complete(List<long[]> likes, boolean liked, boolean requeue) {
+        for (long[] like : likes) {
+            Key key = new Key(like[0], like[1]);
+            Shard shard = shard(key);
+            synchronized (shard) {
+                if (requeue && shard.events.putIfAbsent(key, liked) == null) {
+                    depth.increment();
+                }
+                shard.flushing.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Writes what is left before the datasource is closed, once graceful shutdown let the last requests complete.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.debug("Flushing the like buffer before shutdown");
+        flush();
+    }
+
+    /**
+     * @return the number of (product, user) pairs waiting to be written.
+     */
+    public long getDepth() {
+        return depth.sum();
+    }
+
+    private Shard shard(Key key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    /**
+     * The events of a shard, and the pairs of the flush in progress. Its monitor orders the direct writes of its pairs
+     * against the flushes.
+     */
+    private static final class Shard {
+
+        private final Map<Key, Boolean> events = new ConcurrentHashMap<>();
+
+        private final Set<Key> flushing = new HashSet<>();
+    }
+
+    private static final class Key {
+
+        private final long productId;
+
+        private final long userId;
+
+        private Key(long productId, long userId) {
+            this.productId = productId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return productId == other.productId && userId == other.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, userId);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.service.dto.PriceAnalyticsBatchDTO;
+import com.ayham.testapp.service.dto.PriceAnalyticsResultDTO;
+import java.util.function.Consumer;
+
+/**
+ * Service Interface for computing price statistics of many products and categories at once.
+ */
+public interface PriceAnalyticsService {
+    /**
+     * Computes the statistics of every product and category of the batch over every window, with one grouped query per
+     * window and chunk of ids.
+     *
+     * @param batch the ids and windows to compute.
+     * @param consumer receives the results, on the calling thread, as soon as their query completes.
+     */
+    void computeBatch(PriceAnalyticsBatchDTO batch, Consumer<PriceAnalyticsResultDTO> consumer);
+}
@@ -0,0 +1,227 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.service.dto.PriceIntervalDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per product, in memory index of the {@link com.ayham.testapp.domain.ProductPrice} intervals.
+ * <p>
+ * An index is loaded on first use and dropped once a transaction changing a price of the product commits on this node.
+ * Changes committed on other nodes are only seen once the index expires, {@code application.price-index.time-to-live-seconds}
+ * after it was loaded. Indexes are weighted by their footprint and evicted beyond {@code application.price-index.max-bytes}.
+ */
+@Component
+public class PriceIntervalIndex {
+
+    public static final String CACHE_NAME = "priceIntervalIndex";
+
+    private final Logger log = LoggerFactory.getLogger(PriceIntervalIndex.class);
+
+    private final ProductPriceRepository productPriceRepository;
+
+    private final Cache<Long, Intervals> cache;
+
+    private final boolean enabled;
+
+    public PriceIntervalIndex(
+        ProductPriceRepository productPriceRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.PriceIndex properties = applicationProperties.getPriceIndex();
+        this.productPriceRepository = productPriceRepository;
+        this.enabled = properties.isEnabled();
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+                .maximumWeight(properties.getMaxBytes())
+                .<Long, Intervals>weigher((productId, intervals) -> (int) Math.min(Integer.MAX_VALUE, intervals.sizeInBytes()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("price.index.bytes", this, PriceIntervalIndex::sizeInBytes).baseUnit("bytes").register(meterRegistry);
+        log.debug("Price interval index {} with at most {} bytes", enabled ? "enabled" : "disabled", properties.getMaxBytes());
+    }
+
+    /**
+     * @return true if the indexes are kept in memory, and averages of a single product answered from them.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the index of a product, loading it on a cache miss. When the index is disabled, it is loaded on every call.
+     *
+     * @param productId the id of the product.
+     * @return the intervals of the product.
+     */
+    public Intervals get(Long productId) {
+        if (!enabled) {
+            return load(productId);
+        }
+        return cache.get(productId, this::load);
+    }
+
+    private Intervals load(Long productId) {
+        return new Intervals(productPriceRepository.findIntervalsForProduct(productId));
+    }
+
+    /**
+     * Drops the index of a product once the current transaction commits, or right away outside of a transaction.
+     *
+     * @param productId the id of the product whose prices changed.
+     */
+    public void invalidateAfterCommit(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cache.invalidate(productId);
+                    }
+                }
+            );
+        } else {
+            cache.invalidate(productId);
+        }
+    }
+
+    /**
+     * @return the estimated footprint of all loaded indexes.
+     */
+    public long sizeInBytes() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * Immutable price intervals of one product, sorted by start.
+     * <p>
+     * The sorted arrays are read as an implicit balanced binary search tree whose nodes also hold the maximum end of their
+     * subtree, so an overlap query skips every subtree ending before the period and stops at the first start after it.
+     */
+    public static final class Intervals {
+
+        private final long[] ids;
+
+        private final long[] prices;
+
+        private final long[] starts;
+
+        private final long[] ends;
+
+        private final long[] maxEnds;
+
+        Intervals(List<PriceIntervalDTO> intervals) {
+            int size = intervals.size();
+            this.ids = new long[size];
+            this.prices = new long[size];
+            this.starts = new long[size];
+            this.ends = new long[size];
+            this.maxEnds = new long[size];
+            for (int i = 0; i < size; i++) {
+                PriceIntervalDTO interval = intervals.get(i);
+                ids[i] = interval.getId();
+                prices[i] = interval.getPrice();
+                starts[i] = interval.getStartMillis();
+                ends[i] = interval.getEndMillis();
+            }
+            buildMaxEnds(0, size);
+        }
+
+        private long buildMaxEnds(int from, int to) {
+            if (from >= to) {
+                return Long.MIN_VALUE;
+            }
+            int mid = (from + to) >>> 1;
+            long maxEnd = Math.max(ends[mid], Math.max(buildMaxEnds(from, mid), buildMaxEnds(mid + 1, to)));
+            maxEnds[mid] = maxEnd;
+            return maxEnd;
+        }
+
+        /**
+         * Visits, in start order, the positions of the intervals overlapping {@code [from, to)}.
+         *
+         * @param from start of the period, in epoch millis.
+         * @param to end of the period, in epoch millis.
+         * @param consumer receives the position of each overlapping interval.
+         */
+        public void forEachOverlapping(long from, long to, IntConsumer consumer) {
+            forEachOverlapping(0, ids.length, from, to, consumer);
+        }
+
+        private void forEachOverlapping(int lo, int hi, long from, long to, IntConsumer consumer) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (maxEnds[mid] <= from) {
+                    return;
+                }
+                forEachOverlapping(lo, mid, from, to, consumer);
+                if (starts[mid] >= to) {
+                    return;
+                }
+                if (ends[mid] > from) {
+                    consumer.accept(mid);
+                }
+                lo = mid + 1;
+            }
+        }
+
+        /**
+         * Finds the price in effect at an instant: among the intervals containing it, the one that started last.
+         *
+         * @param at the instant, in epoch millis.
+         * @return the position of the interval, or -1 if no price is in effect.
+         */
+        public int effectiveAt(long at) {
+            int[] effective = { -1 };
+            forEachOverlapping(at, at + 1, position -> effective[0] = position);
+            return effective[0];
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public long getId(int position) {
+            return ids[position];
+        }
+
+        public long getPrice(int position) {
+            return prices[position];
+        }
+
+        public long getStartMillis(int position) {
+            return starts[position];
+        }
+
+        public long getEndMillis(int position) {
+            return ends[position];
+        }
+
+        /**
+         * @return the estimated heap footprint of the index: five arrays of longs and the object holding them.
+         */
+        public long sizeInBytes() {
+            return 5 * (16 + 8L * ids.length) + 32;
+        }
+    }
+}
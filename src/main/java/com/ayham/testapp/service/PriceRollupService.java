@@ -0,0 +1,53 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.domain.PriceRollup;
+import com.ayham.testapp.domain.ProductPrice;
+import com.ayham.testapp.domain.enumeration.RollupScope;
+import com.ayham.testapp.service.dto.PriceRangeStatisticsDTO;
+import java.time.Instant;
+
+/**
+ * Service Interface for maintaining and querying {@link PriceRollup}.
+ */
+public interface PriceRollupService {
+    /**
+     * @return true if the rollups are maintained and used to answer range queries.
+     */
+    boolean isEnabled();
+
+    /**
+     * Updates the rollups of the product and its category after a productPrice changed.
+     *
+     * @param before a copy of the productPrice before the change, or null if it was created.
+     * @param after the productPrice after the change, or null if it was deleted.
+     */
+    void onPriceChanged(ProductPrice before, ProductPrice after);
+
+    /**
+     * Moves the prices of a product from the rollups of one category to another.
+     *
+     * @param productId the id of the product.
+     * @param previousCategoryId the previous category of the product, may be null.
+     * @param categoryId the new category of the product, may be null.
+     */
+    void onProductCategoryChanged(Long productId, Long previousCategoryId, Long categoryId);
+
+    /**
+     * Computes the statistics of a period from the largest buckets fitting in it, and the raw prices for what is left.
+     * When the rollups are disabled, the whole period is computed from the raw prices.
+     *
+     * @param scope whether {@code scopeId} is a product or a category.
+     * @param scopeId the id of the product or category.
+     * @param startDate of the period.
+     * @param endDate of the period.
+     * @return the statistics of the prices overlapping the period.
+     */
+    PriceRangeStatisticsDTO getStatistics(RollupScope scope, Long scopeId, Instant startDate, Instant endDate);
+
+    /**
+     * Recomputes all rollups from the productPrices, in parallel chunks.
+     *
+     * @return the number of rollups written.
+     */
+    long rebuild();
+}
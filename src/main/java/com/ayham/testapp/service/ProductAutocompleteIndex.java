@@ -0,0 +1,559 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.domain.enumeration.Status;
+import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.service.dto.ProductSummaryDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In memory type-ahead index of the {@link Product} titles, ranked active first, then by like count.
+ * <p>
+ * The index is an immutable snapshot of the {@code application.autocomplete.max-products} most popular products: the
+ * title and every word of it sorted in one array, searched by binary search, with the top matches of the shortest
+ * prefixes computed once, and those of longer prefixes picked from a segment tree of the best ranked product over the
+ * keys. It is rebuilt on a background thread and swapped in atomically. Products written in between are read again once
+ * their transaction commits, and kept in an overlay that shadows the snapshot until the next rebuild, its keys sorted
+ * the same way in a skip list.
+ */
+@Component
+public class ProductAutocompleteIndex {
+
+    public static final int MAX_SIZE = 50;
+
+    private static final Comparator<ProductSummaryDTO> RANKING = Comparator
+        .comparing((ProductSummaryDTO product) -> product.getStatus() != Status.ACTIVE)
+        .thenComparing(ProductSummaryDTO::getLikeCount, Comparator.reverseOrder())
+        .thenComparing(ProductSummaryDTO::getId);
+
+    private final Logger log = LoggerFactory.getLogger(ProductAutocompleteIndex.class);
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Autocomplete properties;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+        new CustomizableThreadFactory("product-autocomplete-")
+    );
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Products written since the snapshot, by id. A removed product is kept as an entry without a product.
+     */
+    private final Map<Long, OverlayEntry> overlay = new ConcurrentHashMap<>();
+
+    /**
+     * Titles and their word suffixes of the products in the overlay, updated with their entry.
+     */
+    private final NavigableSet<OverlayKey> overlayKeys = new ConcurrentSkipListSet<>(OverlayKey.ORDER);
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ProductAutocompleteIndex(
+        ProductRepository productRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getAutocomplete();
+        Gauge.builder("product.autocomplete.bytes", this, index -> index.snapshot.sizeInBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("product.autocomplete.overlay", overlay, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the best ranked products having a title, or a word of it, starting with a prefix.
+     *
+     * @param prefix the prefix, case insensitive.
+     * @param size the maximum number of products, at most {@link #MAX_SIZE}.
+     * @return the products, best ranked first.
+     */
+    public List<ProductSummaryDTO> complete(String prefix, int size) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        List<ProductSummaryDTO> matches = new ArrayList<>();
+        for (int product : current.top(normalized, size, position -> overlay.containsKey(current.ids[position]))) {
+            matches.add(current.summary(product));
+        }
+        matches.addAll(overlayTop(normalized, size));
+        matches.sort(RANKING);
+        return matches.size() > size ? new ArrayList<>(matches.subList(0, size)) : matches;
+    }
+
+    /**
+     * Adds or replaces a product once the current transaction commits, or right away outside of a transaction. The
+     * product is read again then, as the like count of an entity saved from a request is not the persisted one.
+     *
+     * @param product the product, as saved.
+     */
+    public void upsertAfterCommit(Product product) {
+        readAfterCommit(product.getId());
+    }
+
+    /**
+     * Removes a product once the current transaction commits, or right away outside of a transaction.
+     *
+     * @param productId the id of the deleted product.
+     */
+    public void removeAfterCommit(Long productId) {
+        readAfterCommit(productId);
+    }
+
+    /**
+     * Reads the products written by the current transaction in one query once it commits, the ones not found being
+     * removed.
+     */
+    private void readAfterCommit(Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            read(Set.of(productId));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> written = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (written == null) {
+            Set<Long> productIds = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, productIds);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(ProductAutocompleteIndex.this);
+                        if (status == STATUS_COMMITTED) {
+                            read(productIds);
+                        }
+                    }
+                }
+            );
+            written = productIds;
+        }
+        written.add(productId);
+    }
+
+    private void read(Set<Long> productIds) {
+        try {
+            List<ProductSummaryDTO> products = transactionTemplate.execute(status -> productRepository.findSummariesByIdIn(productIds));
+            Map<Long, ProductSummaryDTO> found = new HashMap<>();
+            Optional.ofNullable(products).orElse(List.of()).forEach(product -> found.put(product.getId(), product));
+            for (Long productId : productIds) {
+                ProductSummaryDTO product = found.get(productId);
+                putOverlay(productId, product != null && product.getTitle() != null ? product : null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not read {} written products, the autocomplete index misses them until the next rebuild", productIds, e);
+        }
+    }
+
+    /**
+     * Picks the best ranked products of the overlay from its keys starting with the prefix, so that the work depends on the
+     * matches and not on the size of the overlay.
+     */
+    private List<ProductSummaryDTO> overlayTop(String prefix, int limit) {
+        PriorityQueue<ProductSummaryDTO> top = new PriorityQueue<>(RANKING.reversed());
+        Set<Long> productIds = new HashSet<>();
+        OverlayKey from = new OverlayKey(prefix, null);
+        OverlayKey to = new OverlayKey(prefix + Character.MAX_VALUE, null);
+        for (OverlayKey key : overlayKeys.subSet(from, true, to, false)) {
+            ProductSummaryDTO product = key.entry.product;
+            if (productIds.add(product.getId())) {
+                top.add(product);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        return new ArrayList<>(top);
+    }
+
+    /**
+     * Replaces the entry of a product along with its keys, atomically for the product.
+     */
+    private void putOverlay(Long productId, ProductSummaryDTO product) {
+        OverlayEntry entry = new OverlayEntry(product, sequence.incrementAndGet());
+        overlay.compute(
+            productId,
+            (id, previous) -> {
+                removeOverlayKeys(previous);
+                keysOf(entry.normalizedTitle).forEach(key -> overlayKeys.add(new OverlayKey(key, entry)));
+                return entry;
+            }
+        );
+        if (overlay.size() > properties.getOverlayLimit()) {
+            requestRebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        initialDelayString = "${application.autocomplete.rebuild-delay-ms:300000}",
+        fixedDelayString = "${application.autocomplete.rebuild-delay-ms:300000}"
+    )
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildPending.set(false);
+        long startSequence = sequence.get();
+        long start = System.currentTimeMillis();
+        try {
+            List<ProductSummaryDTO> products = transactionTemplate.execute(status -> {
+                try (Stream<ProductSummaryDTO> summaries = productRepository.streamAllSummaries()) {
+                    return bestRanked(summaries, properties.getMaxProducts());
+                }
+            });
+            snapshot = Snapshot.build(Optional.ofNullable(products).orElse(List.of()), properties.getPrecomputedPrefixLength());
+            for (Long productId : overlay.keySet()) {
+                overlay.computeIfPresent(
+                    productId,
+                    (id, entry) -> {
+                        if (entry.sequence > startSequence) {
+                            return entry;
+                        }
+                        removeOverlayKeys(entry);
+                        return null;
+                    }
+                );
+            }
+            log.debug(
+                "Rebuilt the autocomplete index of {} products, {} bytes, in {}ms",
+                snapshot.ids.length,
+                snapshot.sizeInBytes,
+                System.currentTimeMillis() - start
+            );
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild the autocomplete index", e);
+        }
+    }
+
+    /**
+     * Keeps the best ranked products of the stream in a bounded heap, so a rebuild never holds more than the index does.
+     */
+    private static List<ProductSummaryDTO> bestRanked(Stream<ProductSummaryDTO> summaries, int limit) {
+        PriorityQueue<ProductSummaryDTO> best = new PriorityQueue<>(RANKING.reversed());
+        summaries
+            .filter(summary -> summary.getTitle() != null)
+            .forEach(summary -> {
+                best.add(summary);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+        List<ProductSummaryDTO> products = new ArrayList<>(best);
+        products.sort(RANKING);
+        return products;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the title and every word suffix of it, the keys a prefix is searched in.
+     */
+    private static List<String> keysOf(String normalizedTitle) {
+        List<String> keys = new ArrayList<>();
+        if (normalizedTitle == null) {
+            return keys;
+        }
+        for (int start = 0; start < normalizedTitle.length(); start = normalizedTitle.indexOf(' ', start) + 1) {
+            keys.add(normalizedTitle.substring(start));
+            if (normalizedTitle.indexOf(' ', start) < 0) {
+                break;
+            }
+        }
+        return keys;
+    }
+
+    private void removeOverlayKeys(OverlayEntry entry) {
+        if (entry != null) {
+            keysOf(entry.normalizedTitle).forEach(key -> overlayKeys.remove(new OverlayKey(key, entry)));
+        }
+    }
+
+    private static final class OverlayEntry {
+
+        private final ProductSummaryDTO product;
+
+        private final String normalizedTitle;
+
+        private final long sequence;
+
+        private OverlayEntry(ProductSummaryDTO product, long sequence) {
+            this.product = product;
+            this.normalizedTitle = product != null ? normalize(product.getTitle()) : null;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A key of an overlay entry, sorted by key then by rank, the bounds of a range having no entry.
+     */
+    private static final class OverlayKey {
+
+        private static final Comparator<OverlayKey> ORDER = Comparator
+            .comparing((OverlayKey overlayKey) -> overlayKey.key)
+            .thenComparing(
+                overlayKey -> overlayKey.entry,
+                Comparator.nullsFirst(
+                    Comparator.comparing((OverlayEntry entry) -> entry.product, RANKING).thenComparingLong(entry -> entry.sequence)
+                )
+            );
+
+        private final String key;
+
+        private final OverlayEntry entry;
+
+        private OverlayKey(String key, OverlayEntry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Immutable index over products sorted by rank, so that a lower position is a better rank.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = build(List.of(), 0);
+
+        private final long[] ids;
+
+        private final String[] titles;
+
+        private final Status[] statuses;
+
+        private final long[] likeCounts;
+
+        /**
+         * Titles and their word suffixes, sorted, with the position of their product in {@link #keyProducts}.
+         */
+        private final String[] keys;
+
+        private final int[] keyProducts;
+
+        /**
+         * Segment tree over {@link #keyProducts}: node {@code i} holds the key of the best ranked product among the keys
+         * of its children {@code 2i} and {@code 2i + 1}, the leaves starting at {@code keys.length}.
+         */
+        private final int[] bestKeys;
+
+        private final Map<String, int[]> precomputed;
+
+        private final long sizeInBytes;
+
+        private Snapshot(List<ProductSummaryDTO> products, String[] keys, int[] keyProducts, int precomputedPrefixLength) {
+            int size = products.size();
+            this.ids = new long[size];
+            this.titles = new String[size];
+            this.statuses = new Status[size];
+            this.likeCounts = new long[size];
+            for (int i = 0; i < size; i++) {
+                ProductSummaryDTO product = products.get(i);
+                ids[i] = product.getId();
+                titles[i] = product.getTitle();
+                statuses[i] = product.getStatus();
+                likeCounts[i] = product.getLikeCount();
+            }
+            this.keys = keys;
+            this.keyProducts = keyProducts;
+            this.bestKeys = new int[2 * keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                bestKeys[keys.length + i] = i;
+            }
+            for (int i = keys.length - 1; i > 0; i--) {
+                bestKeys[i] = better(bestKeys[2 * i], bestKeys[2 * i + 1]);
+            }
+            this.precomputed = precompute(precomputedPrefixLength);
+            long bytes = 32L * size;
+            for (int i = 0; i < size; i++) {
+                bytes += 40 + 2L * titles[i].length();
+            }
+            for (String key : keys) {
+                bytes += 56 + 2L * key.length();
+            }
+            this.sizeInBytes = bytes + 12L * precomputed.size() * MAX_SIZE;
+        }
+
+        static Snapshot build(List<ProductSummaryDTO> products, int precomputedPrefixLength) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+            for (int i = 0; i < products.size(); i++) {
+                for (String key : keysOf(normalize(products.get(i).getTitle()))) {
+                    entries.add(Map.entry(key, i));
+                }
+            }
+            entries.sort(Map.Entry.<String, Integer>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+            String[] keys = new String[entries.size()];
+            int[] keyProducts = new int[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).getKey();
+                keyProducts[i] = entries.get(i).getValue();
+            }
+            return new Snapshot(products, keys, keyProducts, precomputedPrefixLength);
+        }
+
+        private Map<String, int[]> precompute(int prefixLength) {
+            Map<String, TreeSet<Integer>> tops = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                for (int length = 1; length <= prefixLength && length <= keys[i].length(); length++) {
+                    TreeSet<Integer> top = tops.computeIfAbsent(keys[i].substring(0, length), prefix -> new TreeSet<>());
+                    top.add(keyProducts[i]);
+                    if (top.size() > MAX_SIZE) {
+                        top.pollLast();
+                    }
+                }
+            }
+            Map<String, int[]> precomputed = new HashMap<>();
+            tops.forEach((prefix, top) -> precomputed.put(prefix, top.stream().mapToInt(Integer::intValue).toArray()));
+            return precomputed;
+        }
+
+        /**
+         * Picks the best ranked products matching the prefix from the precomputed ones, or from the segment tree when the
+         * prefix is longer or too many of them are skipped, so that the work depends on the limit and not on the number of
+         * matches.
+         *
+         * @param skipped the products to leave out, as shadowed by the overlay.
+         * @return the positions of the best ranked products matching the prefix, best first.
+         */
+        int[] top(String prefix, int limit, IntPredicate skipped) {
+            int[] precomputedTop = precomputed.get(prefix);
+            if (precomputedTop != null) {
+                int[] top = Arrays.stream(precomputedTop).filter(product -> !skipped.test(product)).limit(limit).toArray();
+                if (top.length == limit || precomputedTop.length < MAX_SIZE) {
+                    return top;
+                }
+            }
+            int from = lowerBound(prefix);
+            int to = upperBound(prefix, from);
+            PriorityQueue<int[]> ranges = new PriorityQueue<>(Comparator.comparingInt((int[] range) -> keyProducts[range[0]]));
+            if (from < to) {
+                ranges.add(new int[] { best(from, to), from, to });
+            }
+            Set<Integer> top = new LinkedHashSet<>();
+            while (top.size() < limit && !ranges.isEmpty()) {
+                int[] range = ranges.poll();
+                int product = keyProducts[range[0]];
+                if (!skipped.test(product)) {
+                    top.add(product);
+                }
+                if (range[1] < range[0]) {
+                    ranges.add(new int[] { best(range[1], range[0]), range[1], range[0] });
+                }
+                if (range[0] + 1 < range[2]) {
+                    ranges.add(new int[] { best(range[0] + 1, range[2]), range[0] + 1, range[2] });
+                }
+            }
+            return top.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * @return the key of the best ranked product among the keys from {@code from} inclusive to {@code to} exclusive.
+         */
+        private int best(int from, int to) {
+            int best = from;
+            for (int low = from + keys.length, high = to + keys.length; low < high; low >>>= 1, high >>>= 1) {
+                if ((low & 1) == 1) {
+                    best = better(best, bestKeys[low++]);
+                }
+                if ((high & 1) == 1) {
+                    best = better(best, bestKeys[--high]);
+                }
+            }
+            return best;
+        }
+
+        private int better(int key, int otherKey) {
+            return keyProducts[otherKey] < keyProducts[key] ? otherKey : key;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the first key after {@code from} not starting with the prefix, the keys starting with it being contiguous.
+         */
+        private int upperBound(String prefix, int from) {
+            int low = from;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].startsWith(prefix)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        ProductSummaryDTO summary(int product) {
+            return new ProductSummaryDTO(ids[product], titles[product], statuses[product], likeCounts[product]);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.ayham.testapp.service;
 
 import com.ayham.testapp.domain.ProductPrice;
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import com.ayham.testapp.service.dto.PriceRangeStatisticsDTO;
+import com.ayham.testapp.service.dto.PriceStatisticsDTO;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link ProductPrice}.
@@ -40,6 +44,27 @@ public interface ProductPriceService {
      */
     List<ProductPrice> findAll();
 
+    /**
+     * Get the productPrices following a position in id order, without counting them.
+     *
+     * @param afterId the id of the last productPrice of the previous slice, or null for the first slice.
+     * @param size the maximum number of productPrices.
+     * @return the slice of entities.
+     */
+    Slice<ProductPrice> findSliceOrderById(Long afterId, int size);
+
+    /**
+     * Get the productPrices following a position in start date then id order, without counting them. The productPrices
+     * without a start date come last, in id order.
+     *
+     * @param afterStartDate the start date of the last productPrice of the previous slice, or null for the first slice or
+     * if that productPrice has no start date.
+     * @param afterId the id of the last productPrice of the previous slice, or null for the first slice.
+     * @param size the maximum number of productPrices.
+     * @return the slice of entities.
+     */
+    Slice<ProductPrice> findSliceOrderByStartDate(Instant afterStartDate, Long afterId, int size);
+
     /**
      * Get the "id" productPrice.
      *
@@ -55,14 +80,39 @@ public interface ProductPriceService {
      */
     void delete(Long id);
 
+    /**
+     * Create prices of products of the current user in chunks, each written in its own transaction.
+     *
+     * @param productPrices the prices to create.
+     * @return the result of each price, in order.
+     */
+    List<BulkItemResultDTO> saveAll(List<ProductPrice> productPrices);
+
+    /**
+     * Partially update prices of products of the current user in chunks, each written in its own transaction.
+     *
+     * @param productPrices the fields to update, with the id of each price.
+     * @return the result of each price, in order.
+     */
+    List<BulkItemResultDTO> partialUpdateAll(List<ProductPrice> productPrices);
+
+    /**
+     * Delete prices of products of the current user in chunks, each written in its own transaction.
+     *
+     * @param ids the ids of the prices.
+     * @return the result of each price, in order.
+     */
+    List<BulkItemResultDTO> deleteAll(List<Long> ids);
+
     /**
      * calculates the average price for product for the specified period
      *
      * @param productId of the product to calculate for
      * @param startDate of the period
      * @param endDate of the period
+     * @param mode how the prices are weighted
      */
-    double getAveragePriceForProduct(long productId, Instant startDate, Instant endDate);
+    double getAveragePriceForProduct(long productId, Instant startDate, Instant endDate, AverageMode mode);
 
     /**
      * calculates the average price for category products for the specified period
@@ -70,6 +120,77 @@ public interface ProductPriceService {
      * @param categoryId to calculate for
      * @param startDate of the period
      * @param endDate of the period
+     * @param mode how the prices are weighted
+     */
+    double getAveragePriceForCategory(long categoryId, Instant startDate, Instant endDate, AverageMode mode);
+
+    /**
+     * calculates the average price for the products of a category and all of its subcategories for the specified period
+     *
+     * @param categoryId of the root of the subtree to calculate for
+     * @param startDate of the period
+     * @param endDate of the period
+     * @param mode how the prices are weighted
+     */
+    double getAveragePriceForCategoryTree(long categoryId, Instant startDate, Instant endDate, AverageMode mode);
+
+    /**
+     * computes the average, count, min and max of the product prices of a category and all of its subcategories for the specified period
+     *
+     * @param categoryId of the root of the subtree to calculate for
+     * @param startDate of the period
+     * @param endDate of the period
+     */
+    PriceStatisticsDTO getStatisticsForCategoryTree(long categoryId, Instant startDate, Instant endDate);
+
+    /**
+     * computes the time-weighted statistics of the product prices for the specified period
+     *
+     * @param productId of the product to calculate for
+     * @param startDate of the period
+     * @param endDate of the period
+     */
+    PriceRangeStatisticsDTO getStatisticsForProduct(long productId, Instant startDate, Instant endDate);
+
+    /**
+     * computes the time-weighted statistics of the category product prices for the specified period
+     *
+     * @param categoryId to calculate for
+     * @param startDate of the period
+     * @param endDate of the period
+     */
+    PriceRangeStatisticsDTO getStatisticsForCategory(long categoryId, Instant startDate, Instant endDate);
+
+    /**
+     * finds the prices of the product overlapping the specified period
+     *
+     * @param productId of the product
+     * @param startDate of the period
+     * @param endDate of the period
+     * @return the prices, sorted by start date
+     */
+    List<ProductPrice> findOverlapping(long productId, Instant startDate, Instant endDate);
+
+    /**
+     * finds the price of the product in effect at the specified time
+     *
+     * @param productId of the product
+     * @param at the time
+     * @return the price which started last among those valid at that time, if any
+     */
+    Optional<ProductPrice> findEffective(long productId, Instant at);
+
+    /**
+     * How the prices overlapping a period are averaged.
      */
-    double getAveragePriceForCategory(long categoryId, Instant startDate, Instant endDate);
+    enum AverageMode {
+        /**
+         * Every overlapping price counts once, whatever its duration.
+         */
+        ARITHMETIC,
+        /**
+         * Every price is weighted by how long it overlaps the period.
+         */
+        TIME_WEIGHTED,
+    }
 }
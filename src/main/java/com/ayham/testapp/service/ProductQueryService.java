@@ -0,0 +1,228 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.domain.*; // for static metamodels
+import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.repository.FieldSelection;
+import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.repository.ProjectionRepository;
+import com.ayham.testapp.service.criteria.ProductCriteria;
+import com.ayham.testapp.service.dto.ProductDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+import tech.jhipster.service.filter.LongFilter;
+
+/**
+ * Service for executing complex queries for {@link Product} entities in the database.
+ * The main input is a {@link ProductCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * It returns a {@link List} of {@link Product} or a {@link Page} of {@link Product} which fulfills the criteria.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductQueryService extends QueryService<Product> {
+
+    private final Logger log = LoggerFactory.getLogger(ProductQueryService.class);
+
+    /**
+     * The fields of a product that the {@code fields} parameter can select.
+     */
+    static final FieldSelection<Product, ProductDTO> FIELDS = new FieldSelection<Product, ProductDTO>(Product.class, ProductDTO::new)
+        .field("id", root -> root.get(Product_.id), ProductDTO::setId)
+        .field("title", root -> root.get(Product_.title), ProductDTO::setTitle)
+        .field("description", root -> root.get(Product_.description), ProductDTO::setDescription)
+        .field("status", root -> root.get(Product_.status), ProductDTO::setStatus)
+        .field("likeCount", root -> root.get(Product_.likeCount), ProductDTO::setLikeCount)
+        .field("categoryId", root -> root.get(Product_.category).get(Category_.id), ProductDTO::setCategoryId)
+        .field("ownerId", root -> root.get(Product_.owner).get(User_.id), ProductDTO::setOwnerId);
+
+    private final ProductRepository productRepository;
+
+    private final ProjectionRepository projectionRepository;
+
+    public ProductQueryService(ProductRepository productRepository, ProjectionRepository projectionRepository) {
+        this.productRepository = productRepository;
+        this.projectionRepository = projectionRepository;
+    }
+
+    /**
+     * Return a {@link List} of {@link Product} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Product> findByCriteria(ProductCriteria criteria) {
+        log.debug("find by criteria : {}", criteria);
+        final Specification<Product> specification = createSpecification(criteria);
+        return productRepository.findAll(specification);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Product} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> findByCriteria(ProductCriteria criteria, Pageable page) {
+        log.debug("find by criteria : {}, page: {}", criteria, page);
+        final Specification<Product> specification = createSpecification(criteria);
+        return productRepository.findAll(specification, page);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Product} which matches the criteria from the database, with their relationships.
+     * The relationships of the page are fetched once it is selected, as in
+     * {@link ProductRepository#findAllWithEagerRelationships(Pageable)}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> findByCriteriaWithEagerRelationships(ProductCriteria criteria, Pageable page) {
+        Page<Product> products = findByCriteria(criteria, page);
+        if (products.hasContent()) {
+            List<Long> ids = products.map(Product::getId).getContent();
+            productRepository.findAllWithToOneRelationships(ids);
+            productRepository.fetchProductPrices(ids);
+        }
+        return products;
+    }
+
+    /**
+     * Return a {@link Page} of {@link ProductDTO} which matches the criteria from the database, with only the selected
+     * fields read, and no entity loaded.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param fields The comma separated fields to select, the id being always selected.
+     * @param page The page, which should be returned.
+     * @return the matching DTOs.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findFieldsByCriteria(ProductCriteria criteria, String fields, Pageable page) {
+        log.debug("find fields {} by criteria : {}, page: {}", fields, criteria, page);
+        Set<String> selected = FieldsParameter.parse(FIELDS, "product", fields);
+        final Specification<Product> specification = createSpecification(criteria);
+        return projectionRepository.findAll(FIELDS, selected, specification, page, () -> productRepository.count(specification));
+    }
+
+    /**
+     * Return the selected fields of a product, without loading the entity.
+     * @param id the id of the entity.
+     * @param fields The comma separated fields to select, the id being always selected.
+     * @return the DTO.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductDTO> findFields(Long id, String fields) {
+        log.debug("find fields {} of Product : {}", fields, id);
+        Set<String> selected = FieldsParameter.parse(FIELDS, "product", fields);
+        return projectionRepository.findOne(FIELDS, selected, (root, query, builder) -> builder.equal(root.get(Product_.id), id));
+    }
+
+    /**
+     * Return the number of matching entities in the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(ProductCriteria criteria) {
+        log.debug("count by criteria : {}", criteria);
+        final Specification<Product> specification = createSpecification(criteria);
+        return productRepository.count(specification);
+    }
+
+    /**
+     * Function to convert {@link ProductCriteria} to a {@link Specification}.
+     * <p>
+     * The category and owner are compared on the foreign key columns of product, without joins, and the prices with an
+     * {@code exists} subquery, so every filter stays a predicate of product that its indexes can serve.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Product> createSpecification(ProductCriteria criteria) {
+        Specification<Product> specification = Specification.where(null);
+        if (criteria != null) {
+            // This has to be called first, because the distinct method returns null
+            if (criteria.getDistinct() != null) {
+                specification = specification.and(distinct(criteria.getDistinct()));
+            }
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getId(), Product_.id));
+            }
+            if (criteria.getTitle() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getTitle(), Product_.title));
+            }
+            if (criteria.getStatus() != null) {
+                specification = specification.and(buildSpecification(criteria.getStatus(), Product_.status));
+            }
+            if (criteria.getLikeCount() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getLikeCount(), Product_.likeCount));
+            }
+            if (criteria.getCategoryId() != null) {
+                specification =
+                    specification.and(buildSpecification(criteria.getCategoryId(), root -> root.get(Product_.category).get(Category_.id)));
+            }
+            if (criteria.getOwnerId() != null) {
+                specification =
+                    specification.and(buildSpecification(criteria.getOwnerId(), root -> root.get(Product_.owner).get(User_.id)));
+            }
+            if (criteria.getPrice() != null) {
+                specification = specification.and(hasPriceMatching(criteria.getPrice()));
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * Matches the products having at least one price matching the filter, without joining their prices.
+     */
+    private static Specification<Product> hasPriceMatching(LongFilter filter) {
+        return (root, query, builder) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<ProductPrice> productPrice = subquery.from(ProductPrice.class);
+            Path<Long> price = productPrice.get(ProductPrice_.price);
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.equal(productPrice.get(ProductPrice_.product), root));
+            if (filter.getEquals() != null) {
+                predicates.add(builder.equal(price, filter.getEquals()));
+            }
+            if (filter.getNotEquals() != null) {
+                predicates.add(builder.notEqual(price, filter.getNotEquals()));
+            }
+            if (filter.getIn() != null) {
+                predicates.add(price.in(filter.getIn()));
+            }
+            if (filter.getNotIn() != null) {
+                predicates.add(builder.not(price.in(filter.getNotIn())));
+            }
+            if (filter.getSpecified() != null) {
+                predicates.add(filter.getSpecified() ? builder.isNotNull(price) : builder.isNull(price));
+            }
+            if (filter.getGreaterThan() != null) {
+                predicates.add(builder.greaterThan(price, filter.getGreaterThan()));
+            }
+            if (filter.getGreaterThanOrEqual() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(price, filter.getGreaterThanOrEqual()));
+            }
+            if (filter.getLessThan() != null) {
+                predicates.add(builder.lessThan(price, filter.getLessThan()));
+            }
+            if (filter.getLessThanOrEqual() != null) {
+                predicates.add(builder.lessThanOrEqualTo(price, filter.getLessThanOrEqual()));
+            }
+            return builder.exists(subquery.select(productPrice.get(ProductPrice_.id)).where(predicates.toArray(new Predicate[0])));
+        };
+    }
+}
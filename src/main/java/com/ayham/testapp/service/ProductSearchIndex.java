@@ -0,0 +1,457 @@
+package com.ayham.testapp.service;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.domain.enumeration.Status;
+import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.service.dto.ProductExportDTO;
+import com.ayham.testapp.service.dto.ProductSearchHitDTO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lucene full-text index of the {@link Product} titles and descriptions, kept in {@code application.search.directory}.
+ * <p>
+ * Products are indexed once the transaction changing them commits. Changes become searchable on the next refresh,
+ * every {@code application.search.refresh-delay-ms}, and are committed to disk every
+ * {@code application.search.commit-delay-ms} and on shutdown. The index is rebuilt at startup if it does not hold the same
+ * set of product ids as the database, compared by count, maximum and sum.
+ * <p>
+ * A rebuild updates the documents in place, tagged with a new generation, and deletes the documents of older generations
+ * at the end, so searches keep reading the former index until it completes.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final String ID = "id";
+
+    private static final String ID_SORT = "id_sort";
+
+    private static final String TITLE = "title";
+
+    private static final String DESCRIPTION = "description";
+
+    private static final String STATUS = "status";
+
+    private static final String CATEGORY_ID = "category_id";
+
+    private static final String GENERATION = "generation";
+
+    private static final Sort RELEVANCE = new Sort(SortField.FIELD_SCORE, new SortField(ID_SORT, SortField.Type.LONG));
+
+    private final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Search properties;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final IndexWriter indexWriter;
+
+    private final SearcherManager searcherManager;
+
+    /**
+     * Live changes hold the read lock while they are applied, and the end of a rebuild holds the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The generation of the documents written from now on.
+     */
+    private volatile long generation = System.currentTimeMillis();
+
+    /**
+     * The ids of the products changed since the rebuild started, or null if no rebuild runs.
+     */
+    private volatile Set<Long> changedDuringReindex;
+
+    public ProductSearchIndex(
+        ProductRepository productRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) throws IOException {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = applicationProperties.getSearch();
+        IndexWriterConfig config = new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.indexWriter = new IndexWriter(FSDirectory.open(Paths.get(properties.getDirectory())), config);
+        this.searcherManager = new SearcherManager(indexWriter, null);
+        log.debug("Product search index opened in {} with {} documents", properties.getDirectory(), indexWriter.getDocStats().numDocs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexIfStale() {
+        long[] indexed = indexedIds();
+        long[] products = transactionTemplate.execute(status ->
+            new long[] { productRepository.count(), productRepository.findMaxId(), productRepository.findIdSum() }
+        );
+        if (!Arrays.equals(indexed, products)) {
+            log.info(
+                "Product search index holds {} documents up to id {} for {} products up to id {}, reindexing",
+                indexed[0],
+                indexed[1],
+                products[0],
+                products[1]
+            );
+            reindex();
+        }
+    }
+
+    /**
+     * @return the count, maximum and sum of the ids of the documents, from their doc values.
+     */
+    private long[] indexedIds() {
+        long count = 0;
+        long max = 0;
+        long sum = 0;
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                    Bits liveDocs = leaf.reader().getLiveDocs();
+                    NumericDocValues ids = DocValues.getNumeric(leaf.reader(), ID_SORT);
+                    for (int doc = ids.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = ids.nextDoc()) {
+                        if (liveDocs == null || liveDocs.get(doc)) {
+                            count++;
+                            max = Math.max(max, ids.longValue());
+                            sum += ids.longValue();
+                        }
+                    }
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new long[] { count, max, sum };
+    }
+
+    /**
+     * Indexes a product once the current transaction commits, or right away outside of a transaction.
+     *
+     * @param product the product, as saved.
+     */
+    public void indexAfterCommit(Product product) {
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        ProductExportDTO row = new ProductExportDTO(
+            product.getId(),
+            product.getTitle(),
+            product.getDescription(),
+            product.getStatus(),
+            categoryId,
+            null
+        );
+        afterCommit(product.getId(), () -> indexWriter.updateDocument(new Term(ID, product.getId().toString()), toDocument(row)));
+    }
+
+    /**
+     * Removes a product from the index once the current transaction commits, or right away outside of a transaction.
+     *
+     * @param productId the id of the deleted product.
+     */
+    public void deleteAfterCommit(Long productId) {
+        afterCommit(productId, () -> indexWriter.deleteDocuments(new Term(ID, productId.toString())));
+    }
+
+    private void afterCommit(Long productId, IndexOperation operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(productId, operation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(productId, operation);
+                }
+            }
+        );
+    }
+
+    /**
+     * Applies a live change, and records it for a running rebuild to read the product again once its chunks are written.
+     */
+    private void apply(Long productId, IndexOperation operation) {
+        lock.readLock().lock();
+        try {
+            Set<Long> changed = changedDuringReindex;
+            if (changed != null) {
+                changed.add(productId);
+            }
+            operation.apply();
+        } catch (IOException e) {
+            log.error("Could not update the product search index, reindex to repair it", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the titles and descriptions, the titles weighing twice as much, most relevant first.
+     *
+     * @param text the words to search, in the simple query syntax: {@code +}, {@code |}, {@code -}, quotes and {@code *}.
+     * @param status only products with this status, if not null.
+     * @param categoryId only products of this category, if not null.
+     * @param afterScore the score of the last hit of the previous slice, or null for the first slice.
+     * @param afterId the id of the last hit of the previous slice, or null for the first slice.
+     * @param size the maximum number of hits.
+     * @return the slice of hits.
+     */
+    public Slice<ProductSearchHitDTO> search(String text, Status status, Long categoryId, Float afterScore, Long afterId, int size) {
+        Query textQuery = new SimpleQueryParser(analyzer, Map.of(TITLE, 2f, DESCRIPTION, 1f)).parse(text);
+        if (textQuery == null) {
+            return new SliceImpl<>(List.of(), PageRequest.of(0, size), false);
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if (status != null) {
+            query.add(new TermQuery(new Term(STATUS, status.name())), BooleanClause.Occur.FILTER);
+        }
+        if (categoryId != null) {
+            query.add(LongPoint.newExactQuery(CATEGORY_ID, categoryId), BooleanClause.Occur.FILTER);
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldDocs top = afterScore == null || afterId == null
+                    ? searcher.search(query.build(), size + 1, RELEVANCE, true)
+                    : searcher.searchAfter(
+                        new FieldDoc(Integer.MAX_VALUE, afterScore, new Object[] { afterScore, afterId }),
+                        query.build(),
+                        size + 1,
+                        RELEVANCE,
+                        true
+                    );
+                List<ProductSearchHitDTO> hits = new ArrayList<>(Math.min(size, top.scoreDocs.length));
+                for (int i = 0; i < top.scoreDocs.length && i < size; i++) {
+                    ScoreDoc scoreDoc = top.scoreDocs[i];
+                    Document document = searcher.doc(scoreDoc.doc);
+                    IndexableField category = document.getField(CATEGORY_ID);
+                    hits.add(
+                        new ProductSearchHitDTO(
+                            Long.valueOf(document.get(ID)),
+                            document.get(TITLE),
+                            Status.valueOf(document.get(STATUS)),
+                            category != null ? category.numericValue().longValue() : null,
+                            scoreDoc.score
+                        )
+                    );
+                }
+                return new SliceImpl<>(hits, PageRequest.of(0, size), top.scoreDocs.length > size);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the database, reading and indexing chunks of ids in parallel. Refreshes are
+     * suspended meanwhile. Once the chunks are written, the products changed during the rebuild are read again, and the
+     * documents of the products deleted before it started are removed, with live changes held back.
+     *
+     * @return the number of products indexed.
+     */
+    public synchronized long reindex() {
+        long maxId = productRepository.findMaxId();
+        int chunkSize = properties.getReindexChunkSize();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            properties.getReindexThreads(),
+            new CustomizableThreadFactory("product-reindex-")
+        );
+        lock.writeLock().lock();
+        try {
+            generation = Math.max(System.currentTimeMillis(), generation + 1);
+            changedDuringReindex = ConcurrentHashMap.newKeySet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long fromId = 0; fromId < maxId; fromId += chunkSize) {
+                long chunkFromId = fromId;
+                chunks.add(executor.submit(() -> indexChunk(chunkFromId, chunkFromId + chunkSize)));
+            }
+            long indexed = 0;
+            for (Future<Integer> chunk : chunks) {
+                indexed += chunk.get();
+            }
+            lock.writeLock().lock();
+            try {
+                indexChanged(new ArrayList<>(changedDuringReindex), chunkSize);
+                indexWriter.deleteDocuments(
+                    new BooleanQuery.Builder()
+                        .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                        .add(LongPoint.newRangeQuery(GENERATION, generation, Long.MAX_VALUE), BooleanClause.Occur.MUST_NOT)
+                        .build()
+                );
+                indexWriter.commit();
+                searcherManager.maybeRefreshBlocking();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Reindexed {} products", indexed);
+            return indexed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reindexing the products", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            changedDuringReindex = null;
+            executor.shutdownNow();
+        }
+    }
+
+    private int indexChunk(long fromId, long toId) throws IOException {
+        List<ProductExportDTO> rows = transactionTemplate.execute(status -> productRepository.findExportRowsByIdRange(fromId, toId));
+        if (rows == null) {
+            return 0;
+        }
+        for (ProductExportDTO row : rows) {
+            indexWriter.updateDocument(new Term(ID, row.getId().toString()), toDocument(row));
+        }
+        return rows.size();
+    }
+
+    /**
+     * Indexes the products changed during a rebuild again, as a chunk may have been read before their change and written
+     * after it, and removes the ones deleted since.
+     */
+    private void indexChanged(List<Long> changed, int chunkSize) throws IOException {
+        for (int from = 0; from < changed.size(); from += chunkSize) {
+            List<Long> ids = changed.subList(from, Math.min(changed.size(), from + chunkSize));
+            List<ProductExportDTO> rows = transactionTemplate.execute(status -> productRepository.findExportRowsByIdIn(ids));
+            Set<Long> deletedIds = new HashSet<>(ids);
+            if (rows != null) {
+                for (ProductExportDTO row : rows) {
+                    indexWriter.updateDocument(new Term(ID, row.getId().toString()), toDocument(row));
+                    deletedIds.remove(row.getId());
+                }
+            }
+            for (Long deletedId : deletedIds) {
+                indexWriter.deleteDocuments(new Term(ID, deletedId.toString()));
+            }
+        }
+    }
+
+    private Document toDocument(ProductExportDTO row) {
+        Document document = new Document();
+        document.add(new StringField(ID, row.getId().toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID_SORT, row.getId()));
+        document.add(new LongPoint(GENERATION, generation));
+        if (row.getTitle() != null) {
+            document.add(new TextField(TITLE, row.getTitle(), Field.Store.YES));
+        }
+        if (row.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, row.getDescription(), Field.Store.NO));
+        }
+        if (row.getStatus() != null) {
+            document.add(new StringField(STATUS, row.getStatus().name(), Field.Store.YES));
+        }
+        if (row.getCategoryId() != null) {
+            document.add(new LongPoint(CATEGORY_ID, row.getCategoryId()));
+            document.add(new StoredField(CATEGORY_ID, row.getCategoryId()));
+        }
+        return document;
+    }
+
+    /**
+     * Makes the changes searchable, unless a rebuild runs, whose partial index would be published.
+     */
+    @Scheduled(fixedDelayString = "${application.search.refresh-delay-ms:1000}")
+    public void refresh() throws IOException {
+        if (changedDuringReindex == null) {
+            searcherManager.maybeRefresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.search.commit-delay-ms:60000}")
+    public void commit() throws IOException {
+        if (indexWriter.hasUncommittedChanges()) {
+            indexWriter.commit();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+    }
+
+    @FunctionalInterface
+    private interface IndexOperation {
+        void apply() throws IOException;
+    }
+}
@@ -1,9 +1,15 @@
 package com.ayham.testapp.service;
 
 import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.domain.enumeration.Status;
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import com.ayham.testapp.service.dto.ProductSearchHitDTO;
+import com.ayham.testapp.service.dto.ProductSummaryDTO;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link Product}.
@@ -49,6 +55,45 @@ public interface ProductService {
      */
     Page<Product> findAllWithEagerRelationships(Pageable pageable);
 
+    /**
+     * Get the products following a position in id order, without counting them.
+     *
+     * @param afterId the id of the last product of the previous slice, or null for the first slice.
+     * @param size the maximum number of products.
+     * @return the slice of entities.
+     */
+    Slice<Product> findSliceOrderById(Long afterId, int size);
+
+    /**
+     * Get the products following a position in title then id order, without counting them.
+     *
+     * @param afterTitle the title of the last product of the previous slice, or null for the first slice.
+     * @param afterId the id of the last product of the previous slice, or null for the first slice.
+     * @param size the maximum number of products.
+     * @return the slice of entities.
+     */
+    Slice<Product> findSliceOrderByTitle(String afterTitle, Long afterId, int size);
+
+    /**
+     * Get the products owned by a user following a position in id order, without counting them.
+     *
+     * @param userId the id of the owner.
+     * @param afterId the id of the last product of the previous slice, or null for the first slice.
+     * @param size the maximum number of products.
+     * @return the slice of summaries.
+     */
+    Slice<ProductSummaryDTO> findSliceOwnedBy(Long userId, Long afterId, int size);
+
+    /**
+     * Get the products liked by a user following a position in id order, without counting them.
+     *
+     * @param userId the id of the user.
+     * @param afterId the id of the last product of the previous slice, or null for the first slice.
+     * @param size the maximum number of products.
+     * @return the slice of summaries.
+     */
+    Slice<ProductSummaryDTO> findSliceLikedBy(Long userId, Long afterId, int size);
+
     /**
      * Get the "id" product.
      *
@@ -64,6 +109,68 @@ public interface ProductService {
      */
     void delete(Long id);
 
+    /**
+     * Create products in chunks, each written in its own transaction. The owner of every product must be the current user.
+     *
+     * @param products the products to create.
+     * @return the result of each product, in order.
+     */
+    List<BulkItemResultDTO> saveAll(List<Product> products);
+
+    /**
+     * Partially update products of the current user in chunks, each written in its own transaction.
+     *
+     * @param products the fields to update, with the id of each product.
+     * @return the result of each product, in order.
+     */
+    List<BulkItemResultDTO> partialUpdateAll(List<Product> products);
+
+    /**
+     * Set the status of products of the current user in chunks, each written in its own transaction.
+     *
+     * @param ids the ids of the products.
+     * @param status the new status.
+     * @return the result of each product, in order.
+     */
+    List<BulkItemResultDTO> updateStatusAll(List<Long> ids, Status status);
+
+    /**
+     * Delete products of the current user in chunks, each written in its own transaction.
+     *
+     * @param ids the ids of the products.
+     * @return the result of each product, in order.
+     */
+    List<BulkItemResultDTO> deleteAll(List<Long> ids);
+
+    /**
+     * Full-text search of the products, most relevant first, following a position in relevance then id order.
+     *
+     * @param text the words to search in the titles and descriptions.
+     * @param status only products with this status, if not null.
+     * @param categoryId only products of this category, if not null.
+     * @param afterScore the score of the last hit of the previous slice, or null for the first slice.
+     * @param afterId the id of the last hit of the previous slice, or null for the first slice.
+     * @param size the maximum number of hits.
+     * @return the slice of hits.
+     */
+    Slice<ProductSearchHitDTO> search(String text, Status status, Long categoryId, Float afterScore, Long afterId, int size);
+
+    /**
+     * Completes a prefix of a product title from the in memory autocomplete index, active and most liked products first.
+     *
+     * @param prefix the start of the title, or of a word of it.
+     * @param size the maximum number of products.
+     * @return the products.
+     */
+    List<ProductSummaryDTO> autocomplete(String prefix, int size);
+
+    /**
+     * Rebuilds the search index of all products, in parallel chunks.
+     *
+     * @return the number of products indexed.
+     */
+    long reindex();
+
     /**
      * Like the "id" product.
      *
@@ -77,4 +184,11 @@ public interface ProductService {
      * @param id the id of the entity.
      */
     void unLike(Long id);
+
+    /**
+     * Recomputes the like counts of all products from their likes, in chunks of ids, and repairs the ones that drifted.
+     *
+     * @return the number of products repaired.
+     */
+    long reconcileLikeCounts();
 }
@@ -1,6 +1,7 @@
 package com.ayham.testapp.service;
 
 import com.ayham.testapp.domain.User;
+import com.ayham.testapp.security.UserPrincipal;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -78,11 +79,11 @@ public interface UserService {
     String login(User user);
 
     /**
-     * Logout the provided user by invalidating the token
+     * Logout by invalidating the provided token
      *
-     * @param user to logout
+     * @param token to invalidate
      */
-    void logout(User user);
+    void logout(String token);
 
     /**
      * validates the token exists
@@ -91,6 +92,13 @@ public interface UserService {
      */
     boolean isTokenValid(String token);
 
+    /**
+     * resolves the user who owns the token
+     *
+     * @param token to resolve
+     */
+    Optional<UserPrincipal> authenticate(String token);
+
     /**
      * returns the id of the user who owns the token
      *
@@ -0,0 +1,232 @@
+package com.ayham.testapp.service.criteria;
+
+import com.ayham.testapp.domain.enumeration.Status;
+import java.io.Serializable;
+import java.util.Objects;
+import org.springdoc.api.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.*;
+
+/**
+ * Criteria class for the {@link com.ayham.testapp.domain.Product} entity. This class is used
+ * in {@link com.ayham.testapp.web.rest.ProductResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /products?status.equals=ACTIVE&categoryId.in=1,2&price.lessThan=1000}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductCriteria implements Serializable, Criteria {
+
+    /**
+     * Class for filtering Status
+     */
+    public static class StatusFilter extends Filter<Status> {
+
+        public StatusFilter() {}
+
+        public StatusFilter(StatusFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public StatusFilter copy() {
+            return new StatusFilter(this);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private StringFilter title;
+
+    private StatusFilter status;
+
+    private LongFilter likeCount;
+
+    private LongFilter categoryId;
+
+    private LongFilter ownerId;
+
+    /**
+     * Matches the products having at least one price matching the filter.
+     */
+    private LongFilter price;
+
+    private Boolean distinct;
+
+    public ProductCriteria() {}
+
+    public ProductCriteria(ProductCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.title = other.title == null ? null : other.title.copy();
+        this.status = other.status == null ? null : other.status.copy();
+        this.likeCount = other.likeCount == null ? null : other.likeCount.copy();
+        this.categoryId = other.categoryId == null ? null : other.categoryId.copy();
+        this.ownerId = other.ownerId == null ? null : other.ownerId.copy();
+        this.price = other.price == null ? null : other.price.copy();
+        this.distinct = other.distinct;
+    }
+
+    @Override
+    public ProductCriteria copy() {
+        return new ProductCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getTitle() {
+        return title;
+    }
+
+    public StringFilter title() {
+        if (title == null) {
+            title = new StringFilter();
+        }
+        return title;
+    }
+
+    public void setTitle(StringFilter title) {
+        this.title = title;
+    }
+
+    public StatusFilter getStatus() {
+        return status;
+    }
+
+    public StatusFilter status() {
+        if (status == null) {
+            status = new StatusFilter();
+        }
+        return status;
+    }
+
+    public void setStatus(StatusFilter status) {
+        this.status = status;
+    }
+
+    public LongFilter getLikeCount() {
+        return likeCount;
+    }
+
+    public LongFilter likeCount() {
+        if (likeCount == null) {
+            likeCount = new LongFilter();
+        }
+        return likeCount;
+    }
+
+    public void setLikeCount(LongFilter likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public LongFilter getCategoryId() {
+        return categoryId;
+    }
+
+    public LongFilter categoryId() {
+        if (categoryId == null) {
+            categoryId = new LongFilter();
+        }
+        return categoryId;
+    }
+
+    public void setCategoryId(LongFilter categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public LongFilter getOwnerId() {
+        return ownerId;
+    }
+
+    public LongFilter ownerId() {
+        if (ownerId == null) {
+            ownerId = new LongFilter();
+        }
+        return ownerId;
+    }
+
+    public void setOwnerId(LongFilter ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public LongFilter getPrice() {
+        return price;
+    }
+
+    public LongFilter price() {
+        if (price == null) {
+            price = new LongFilter();
+        }
+        return price;
+    }
+
+    public void setPrice(LongFilter price) {
+        this.price = price;
+    }
+
+    public Boolean getDistinct() {
+        return distinct;
+    }
+
+    public void setDistinct(Boolean distinct) {
+        this.distinct = distinct;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ProductCriteria that = (ProductCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(title, that.title) &&
+            Objects.equals(status, that.status) &&
+            Objects.equals(likeCount, that.likeCount) &&
+            Objects.equals(categoryId, that.categoryId) &&
+            Objects.equals(ownerId, that.ownerId) &&
+            Objects.equals(price, that.price) &&
+            Objects.equals(distinct, that.distinct)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, status, likeCount, categoryId, ownerId, price, distinct);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (title != null ? "title=" + title + ", " : "") +
+            (status != null ? "status=" + status + ", " : "") +
+            (likeCount != null ? "likeCount=" + likeCount + ", " : "") +
+            (categoryId != null ? "categoryId=" + categoryId + ", " : "") +
+            (ownerId != null ? "ownerId=" + ownerId + ", " : "") +
+            (price != null ? "price=" + price + ", " : "") +
+            (distinct != null ? "distinct=" + distinct + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,69 @@
+package com.ayham.testapp.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+
+/**
+ * The result of one item of a bulk request, at the position of the item in the request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Outcome {
+        CREATED,
+        UPDATED,
+        DELETED,
+        INVALID,
+        NOT_FOUND,
+        FORBIDDEN,
+        FAILED,
+    }
+
+    private final int index;
+
+    private final Long id;
+
+    private final Outcome outcome;
+
+    private final String message;
+
+    public BulkItemResultDTO(int index, Long id, Outcome outcome, String message) {
+        this.index = index;
+        this.id = id;
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    public BulkItemResultDTO(int index, Long id, Outcome outcome) {
+        this(index, id, outcome, null);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkItemResultDTO{" +
+            "index=" + getIndex() +
+            ", id=" + getId() +
+            ", outcome='" + getOutcome() + "'" +
+            ", message='" + getMessage() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,95 @@
+package com.ayham.testapp.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A sparse view of a {@link com.ayham.testapp.domain.Category}: only the fields selected by the request are set, and
+ * the others are left out of the JSON, while a selected field is written even when null.
+ */
+@JsonFilter(SparseDTO.FILTER)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class CategoryDTO implements SparseDTO, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Set<String> selectedFields;
+
+    private Long id;
+
+    private String title;
+
+    private Long parentId;
+
+    public CategoryDTO() {
+        this(null);
+    }
+
+    public CategoryDTO(Set<String> selectedFields) {
+        this.selectedFields = selectedFields;
+    }
+
+    @Override
+    @JsonIgnore
+    public Set<String> getSelectedFields() {
+        return selectedFields;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryDTO)) {
+            return false;
+        }
+
+        CategoryDTO categoryDTO = (CategoryDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, categoryDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CategoryDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", parentId=" + getParentId() +
+            "}";
+    }
+}
@@ -0,0 +1,68 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+
+/**
+ * Price statistics to compute for every product and category, over every window.
+ */
+public class PriceAnalyticsBatchDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Long> productIds = new ArrayList<>();
+
+    private List<Long> categoryIds = new ArrayList<>();
+
+    private boolean subcategories;
+
+    @Valid
+    @NotEmpty
+    private List<PriceWindowDTO> windows = new ArrayList<>();
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(List<Long> categoryIds) {
+        this.categoryIds = categoryIds;
+    }
+
+    public boolean isSubcategories() {
+        return subcategories;
+    }
+
+    public void setSubcategories(boolean subcategories) {
+        this.subcategories = subcategories;
+    }
+
+    public List<PriceWindowDTO> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(List<PriceWindowDTO> windows) {
+        this.windows = windows;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceAnalyticsBatchDTO{" +
+            "productIds=" + getProductIds() +
+            ", categoryIds=" + getCategoryIds() +
+            ", subcategories=" + isSubcategories() +
+            ", windows=" + getWindows() +
+            "}";
+    }
+}
@@ -0,0 +1,90 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Price statistics of one product or category over one window.
+ */
+public class PriceAnalyticsResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String scope;
+
+    private final Long id;
+
+    private Instant startTime;
+
+    private Instant endTime;
+
+    private final double average;
+
+    private final long count;
+
+    private final Long minPrice;
+
+    private final Long maxPrice;
+
+    public PriceAnalyticsResultDTO(Long id, Double average, Long count, Long minPrice, Long maxPrice) {
+        this.id = id;
+        this.average = average != null ? average : 0;
+        this.count = count != null ? count : 0;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public PriceAnalyticsResultDTO window(String scope, PriceWindowDTO window) {
+        this.scope = scope;
+        this.startTime = window.getStartTime();
+        this.endTime = window.getEndTime();
+        return this;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Long getMinPrice() {
+        return minPrice;
+    }
+
+    public Long getMaxPrice() {
+        return maxPrice;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceAnalyticsResultDTO{" +
+            "scope='" + getScope() + "'" +
+            ", id=" + getId() +
+            ", startTime='" + getStartTime() + "'" +
+            ", endTime='" + getEndTime() + "'" +
+            ", average=" + getAverage() +
+            ", count=" + getCount() +
+            ", minPrice=" + getMinPrice() +
+            ", maxPrice=" + getMaxPrice() +
+            "}";
+    }
+}
@@ -0,0 +1,58 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The price and validity interval of a {@link com.ayham.testapp.domain.ProductPrice}, without the entity around it.
+ */
+public class PriceIntervalDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final long price;
+
+    private final long startMillis;
+
+    private final long endMillis;
+
+    public PriceIntervalDTO(Long price, Instant startDate, Instant endDate) {
+        this(null, price, startDate, endDate);
+    }
+
+    public PriceIntervalDTO(Long id, Long price, Instant startDate, Instant endDate) {
+        this.id = id;
+        this.price = price;
+        this.startMillis = startDate.toEpochMilli();
+        this.endMillis = endDate.toEpochMilli();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceIntervalDTO{" +
+            "id=" + getId() +
+            ", price=" + getPrice() +
+            ", startMillis=" + getStartMillis() +
+            ", endMillis=" + getEndMillis() +
+            "}";
+    }
+}
@@ -0,0 +1,79 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Time-weighted statistics of the prices overlapping a period.
+ */
+public class PriceRangeStatisticsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final PriceRangeStatisticsDTO EMPTY = new PriceRangeStatisticsDTO(BigDecimal.ZERO, 0L, null, null);
+
+    private final BigDecimal weightedSum;
+
+    private final long coveredMillis;
+
+    private final Long minPrice;
+
+    private final Long maxPrice;
+
+    public PriceRangeStatisticsDTO(BigDecimal weightedSum, Long coveredMillis, Long minPrice, Long maxPrice) {
+        this.weightedSum = weightedSum != null ? weightedSum : BigDecimal.ZERO;
+        this.coveredMillis = coveredMillis != null ? coveredMillis : 0;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * @return the average price, each price weighted by how long it was valid during the period.
+     */
+    public double getAverage() {
+        return coveredMillis > 0 ? weightedSum.divide(BigDecimal.valueOf(coveredMillis), MathContext.DECIMAL64).doubleValue() : 0;
+    }
+
+    public BigDecimal getWeightedSum() {
+        return weightedSum;
+    }
+
+    public long getCoveredMillis() {
+        return coveredMillis;
+    }
+
+    public Long getMinPrice() {
+        return minPrice;
+    }
+
+    public Long getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Combines the statistics of two adjacent periods.
+     *
+     * @param other the statistics of the other period.
+     * @return the statistics of both periods.
+     */
+    public PriceRangeStatisticsDTO plus(PriceRangeStatisticsDTO other) {
+        return new PriceRangeStatisticsDTO(
+            weightedSum.add(other.weightedSum),
+            coveredMillis + other.coveredMillis,
+            minPrice == null ? other.minPrice : other.minPrice == null ? minPrice : Long.valueOf(Math.min(minPrice, other.minPrice)),
+            maxPrice == null ? other.maxPrice : other.maxPrice == null ? maxPrice : Long.valueOf(Math.max(maxPrice, other.maxPrice))
+        );
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceRangeStatisticsDTO{" +
+            "average=" + getAverage() +
+            ", coveredMillis=" + getCoveredMillis() +
+            ", minPrice=" + getMinPrice() +
+            ", maxPrice=" + getMaxPrice() +
+            "}";
+    }
+}
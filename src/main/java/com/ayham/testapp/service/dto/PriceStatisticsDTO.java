@@ -0,0 +1,57 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Aggregated prices of the {@link com.ayham.testapp.domain.ProductPrice}s overlapping a period.
+ */
+public class PriceStatisticsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double average;
+
+    private final long count;
+
+    private final Long minPrice;
+
+    private final Long maxPrice;
+
+    public PriceStatisticsDTO(Double average, Long count) {
+        this(average, count, null, null);
+    }
+
+    public PriceStatisticsDTO(Double average, Long count, Long minPrice, Long maxPrice) {
+        this.average = average != null ? average : 0;
+        this.count = count != null ? count : 0;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Long getMinPrice() {
+        return minPrice;
+    }
+
+    public Long getMaxPrice() {
+        return maxPrice;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceStatisticsDTO{" +
+            "average=" + getAverage() +
+            ", count=" + getCount() +
+            ", minPrice=" + getMinPrice() +
+            ", maxPrice=" + getMaxPrice() +
+            "}";
+    }
+}
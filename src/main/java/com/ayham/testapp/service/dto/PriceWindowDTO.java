@@ -0,0 +1,44 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A period to compute price statistics for.
+ */
+public class PriceWindowDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private Instant startTime;
+
+    @NotNull
+    private Instant endTime;
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceWindowDTO{" +
+            "startTime='" + getStartTime() + "'" +
+            ", endTime='" + getEndTime() + "'" +
+            "}";
+    }
+}
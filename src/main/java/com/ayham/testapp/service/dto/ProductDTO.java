@@ -0,0 +1,140 @@
+package com.ayham.testapp.service.dto;
+
+import com.ayham.testapp.domain.enumeration.Status;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A sparse view of a {@link com.ayham.testapp.domain.Product}: only the fields selected by the request are set, and
+ * the others are left out of the JSON, while a selected field is written even when null.
+ */
+@JsonFilter(SparseDTO.FILTER)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductDTO implements SparseDTO, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Set<String> selectedFields;
+
+    private Long id;
+
+    private String title;
+
+    private String description;
+
+    private Status status;
+
+    private Long likeCount;
+
+    private Long categoryId;
+
+    private Long ownerId;
+
+    public ProductDTO() {
+        this(null);
+    }
+
+    public ProductDTO(Set<String> selectedFields) {
+        this.selectedFields = selectedFields;
+    }
+
+    @Override
+    @JsonIgnore
+    public Set<String> getSelectedFields() {
+        return selectedFields;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Long likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductDTO)) {
+            return false;
+        }
+
+        ProductDTO productDTO = (ProductDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, productDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", likeCount=" + getLikeCount() +
+            ", categoryId=" + getCategoryId() +
+            ", ownerId=" + getOwnerId() +
+            "}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.ayham.testapp.service.dto;
+
+import com.ayham.testapp.domain.enumeration.Status;
+import java.io.Serializable;
+
+/**
+ * A row of the {@link com.ayham.testapp.domain.Product} export, read without loading the entity.
+ */
+public class ProductExportDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String title;
+
+    private final String description;
+
+    private final Status status;
+
+    private final Long categoryId;
+
+    private final Long ownerId;
+
+    public ProductExportDTO(Long id, String title, String description, Status status, Long categoryId, Long ownerId) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.categoryId = categoryId;
+        this.ownerId = ownerId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductExportDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", categoryId=" + getCategoryId() +
+            ", ownerId=" + getOwnerId() +
+            "}";
+    }
+}
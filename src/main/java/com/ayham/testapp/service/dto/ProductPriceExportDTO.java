@@ -0,0 +1,62 @@
+package com.ayham.testapp.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A row of the {@link com.ayham.testapp.domain.ProductPrice} export, read without loading the entity.
+ */
+public class ProductPriceExportDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final Long price;
+
+    private final Instant startDate;
+
+    private final Instant endDate;
+
+    private final Long productId;
+
+    public ProductPriceExportDTO(Long id, Long price, Instant startDate, Instant endDate, Long productId) {
+        this.id = id;
+        this.price = price;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.productId = productId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPrice() {
+        return price;
+    }
+
+    public Instant getStartDate() {
+        return startDate;
+    }
+
+    public Instant getEndDate() {
+        return endDate;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductPriceExportDTO{" +
+            "id=" + getId() +
+            ", price=" + getPrice() +
+            ", startDate='" + getStartDate() + "'" +
+            ", endDate='" + getEndDate() + "'" +
+            ", productId=" + getProductId() +
+            "}";
+    }
+}
@@ -0,0 +1,62 @@
+package com.ayham.testapp.service.dto;
+
+import com.ayham.testapp.domain.enumeration.Status;
+import java.io.Serializable;
+
+/**
+ * A {@link com.ayham.testapp.domain.Product} matching a search, with its relevance score.
+ */
+public class ProductSearchHitDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String title;
+
+    private final Status status;
+
+    private final Long categoryId;
+
+    private final float score;
+
+    public ProductSearchHitDTO(Long id, String title, Status status, Long categoryId, float score) {
+        this.id = id;
+        this.title = title;
+        this.status = status;
+        this.categoryId = categoryId;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductSearchHitDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", categoryId=" + getCategoryId() +
+            ", score=" + getScore() +
+            "}";
+    }
+}
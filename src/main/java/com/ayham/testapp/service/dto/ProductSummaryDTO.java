@@ -0,0 +1,54 @@
+package com.ayham.testapp.service.dto;
+
+import com.ayham.testapp.domain.enumeration.Status;
+import java.io.Serializable;
+
+/**
+ * The columns of a {@link com.ayham.testapp.domain.Product} shown in user listings, read without loading the entity.
+ */
+public class ProductSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String title;
+
+    private final Status status;
+
+    private final long likeCount;
+
+    public ProductSummaryDTO(Long id, String title, Status status, Long likeCount) {
+        this.id = id;
+        this.title = title;
+        this.status = status;
+        this.likeCount = likeCount != null ? likeCount : 0;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductSummaryDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", likeCount=" + getLikeCount() +
+            "}";
+    }
+}
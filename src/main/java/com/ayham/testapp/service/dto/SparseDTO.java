@@ -0,0 +1,19 @@
+package com.ayham.testapp.service.dto;
+
+import java.util.Set;
+
+/**
+ * A DTO with only the fields selected by the request set. The selected fields are written to the JSON even when null,
+ * and the others are left out, by the {@link #FILTER} property filter.
+ */
+public interface SparseDTO {
+    /**
+     * The id of the property filter, in {@link com.fasterxml.jackson.annotation.JsonFilter}.
+     */
+    String FILTER = "sparseFields";
+
+    /**
+     * @return the names of the selected fields, or null if all fields are selected.
+     */
+    Set<String> getSelectedFields();
+}
@@ -0,0 +1,86 @@
+package com.ayham.testapp.service.impl;
+
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the items of a bulk request in chunks, each in a transaction of its own, so that the rows of a chunk are sent
+ * in JDBC batches of {@code hibernate.jdbc.batch_size} when it commits. A chunk that fails to commit is written again
+ * item by item, each in a transaction of its own, so that only the items that fail, such as a product still referenced
+ * by its prices or likes, are reported as {@link BulkItemResultDTO.Outcome#FAILED}. The other items and chunks are kept.
+ */
+final class BulkOperations {
+
+    /**
+     * Writes the items of one chunk, inside its transaction.
+     */
+    @FunctionalInterface
+    interface ChunkWriter<T> {
+        /**
+         * @param chunk the items of the chunk.
+         * @param offset the position of the first item of the chunk in the request.
+         * @return the result of each item of the chunk, in order.
+         */
+        List<BulkItemResultDTO> write(List<T> chunk, int offset);
+    }
+
+    private static final String ITEM_FAILED = "This item could not be written";
+
+    private final Logger log = LoggerFactory.getLogger(BulkOperations.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    BulkOperations(PlatformTransactionManager transactionManager, int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param items the items of the request.
+     * @param idOf the id logged and reported for an item that failed, null-safe.
+     * @param writer writes a chunk.
+     * @return the result of each item, in order.
+     */
+    <T> List<BulkItemResultDTO> run(List<T> items, Function<T, Long> idOf, ChunkWriter<T> writer) {
+        List<BulkItemResultDTO> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+            int offset = from;
+            try {
+                results.addAll(transactionTemplate.execute(status -> writer.write(chunk, offset)));
+            } catch (RuntimeException e) {
+                List<Long> ids = new ArrayList<>(chunk.size());
+                chunk.forEach(item -> ids.add(idOf.apply(item)));
+                log.warn(
+                    "Could not write the bulk chunk of {} items at {} with ids {}, writing them one by one",
+                    chunk.size(),
+                    offset,
+                    ids,
+                    e
+                );
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.addAll(writeItem(chunk.get(i), offset + i, ids.get(i), writer));
+                }
+            }
+        }
+        return results;
+    }
+
+    private <T> List<BulkItemResultDTO> writeItem(T item, int index, Long id, ChunkWriter<T> writer) {
+        try {
+            return transactionTemplate.execute(status -> writer.write(Collections.singletonList(item), index));
+        } catch (RuntimeException e) {
+            log.warn("Could not write the bulk item at {} with id {}", index, id, e);
+            return List.of(new BulkItemResultDTO(index, id, BulkItemResultDTO.Outcome.FAILED, ITEM_FAILED));
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.ayham.testapp.service.impl;
 
 import com.ayham.testapp.domain.Category;
+import com.ayham.testapp.domain.Category_;
+import com.ayham.testapp.repository.CategoryClosureRepository;
 import com.ayham.testapp.repository.CategoryRepository;
+import com.ayham.testapp.repository.FieldSelection;
+import com.ayham.testapp.repository.ProjectionRepository;
 import com.ayham.testapp.service.CategoryService;
+import com.ayham.testapp.service.Exception.CategoryCycleException;
+import com.ayham.testapp.service.FieldsParameter;
+import com.ayham.testapp.service.dto.CategoryDTO;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,21 +32,59 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final Logger log = LoggerFactory.getLogger(CategoryServiceImpl.class);
 
+    /**
+     * The fields of a category that the {@code fields} parameter can select.
+     */
+    private static final FieldSelection<Category, CategoryDTO> FIELDS = new FieldSelection<Category, CategoryDTO>(
+        Category.class,
+        CategoryDTO::new
+    )
+        .field("id", root -> root.get(Category_.id), CategoryDTO::setId)
+        .field("title", root -> root.get(Category_.title), CategoryDTO::setTitle)
+        .field("parentId", root -> root.get(Category_.parent).get(Category_.id), CategoryDTO::setParentId);
+
     private final CategoryRepository categoryRepository;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    private final CategoryClosureRepository categoryClosureRepository;
+
+    private final ProjectionRepository projectionRepository;
+
+    public CategoryServiceImpl(
+        CategoryRepository categoryRepository,
+        CategoryClosureRepository categoryClosureRepository,
+        ProjectionRepository projectionRepository
+    ) {
         this.categoryRepository = categoryRepository;
+        this.categoryClosureRepository = categoryClosureRepository;
+        this.projectionRepository = projectionRepository;
     }
 
     @Override
     public Category save(Category category) {
         log.debug("Request to save Category : {}", category);
-        return categoryRepository.save(category);
+        Long parentId = parentId(category);
+        Category result = categoryRepository.save(category);
+        categoryClosureRepository.insertSelf(result.getId());
+        if (parentId != null) {
+            categoryClosureRepository.attachSubtree(result.getId(), parentId);
+        }
+        return result;
     }
 
     @Override
     public Category update(Category category) {
         log.debug("Request to update Category : {}", category);
+        Long previousParentId = categoryRepository.findParentId(category.getId()).orElse(null);
+        Long parentId = parentId(category);
+        if (!Objects.equals(previousParentId, parentId)) {
+            if (parentId != null && categoryClosureRepository.isAncestor(category.getId(), parentId)) {
+                throw new CategoryCycleException();
+            }
+            categoryClosureRepository.detachSubtree(category.getId());
+            if (parentId != null) {
+                categoryClosureRepository.attachSubtree(category.getId(), parentId);
+            }
+        }
         return categoryRepository.save(category);
     }
 
@@ -61,16 +111,47 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryRepository.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Category> findSliceOrderById(Long afterId, int size) {
+        log.debug("Request to get {} Categories after id {}", size, afterId);
+        if (afterId == null) {
+            return categoryRepository.findSliceByOrderByIdAsc(PageRequest.of(0, size));
+        }
+        return categoryRepository.findSliceAfterId(afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CategoryDTO> findAllFields(String fields, Pageable pageable) {
+        log.debug("Request to get the fields {} of all Categories", fields);
+        Set<String> selected = FieldsParameter.parse(FIELDS, "category", fields);
+        return projectionRepository.findAll(FIELDS, selected, Specification.where(null), pageable, categoryRepository::count);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CategoryDTO> findOneFields(Long id, String fields) {
+        log.debug("Request to get the fields {} of Category : {}", fields, id);
+        Set<String> selected = FieldsParameter.parse(FIELDS, "category", fields);
+        return projectionRepository.findOne(FIELDS, selected, (root, query, builder) -> builder.equal(root.get(Category_.id), id));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Category> findOne(Long id) {
         log.debug("Request to get Category : {}", id);
-        return categoryRepository.findById(id);
+        return categoryRepository.findOneWithEagerRelationships(id);
     }
 
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Category : {}", id);
+        categoryClosureRepository.deleteCategory(id);
         categoryRepository.deleteById(id);
     }
+
+    private static Long parentId(Category category) {
+        return category.getParent() != null ? category.getParent().getId() : null;
+    }
 }
@@ -0,0 +1,168 @@
+package com.ayham.testapp.service.impl;
+
+import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.service.ExportService;
+import com.ayham.testapp.service.dto.ProductExportDTO;
+import com.ayham.testapp.service.dto.ProductPriceExportDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for exporting whole tables, one row at a time.
+ * <p>
+ * Rows are read as DTO projections from a forward only cursor, so neither the persistence context nor the heap grow
+ * with the size of the table.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportServiceImpl implements ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] PRODUCT_PRICE_HEADER = { "id", "price", "startDate", "endDate", "productId" };
+
+    private static final String[] PRODUCT_HEADER = { "id", "title", "description", "status", "categoryId", "ownerId" };
+
+    private final Logger log = LoggerFactory.getLogger(ExportServiceImpl.class);
+
+    private final ProductPriceRepository productPriceRepository;
+
+    private final ProductRepository productRepository;
+
+    private final ObjectWriter objectWriter;
+
+    public ExportServiceImpl(
+        ProductPriceRepository productPriceRepository,
+        ProductRepository productRepository,
+        ObjectMapper objectMapper
+    ) {
+        this.productPriceRepository = productPriceRepository;
+        this.productRepository = productRepository;
+        this.objectWriter =
+            objectMapper
+                .writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .withRootValueSeparator("\n");
+    }
+
+    @Override
+    public void exportProductPrices(Format format, OutputStream outputStream) throws IOException {
+        log.debug("Request to export all ProductPrices as {}", format);
+        try (Stream<ProductPriceExportDTO> rows = productPriceRepository.streamAllForExport()) {
+            long count = export(
+                rows,
+                format,
+                PRODUCT_PRICE_HEADER,
+                row -> new Object[] { row.getId(), row.getPrice(), row.getStartDate(), row.getEndDate(), row.getProductId() },
+                outputStream
+            );
+            log.debug("Exported {} ProductPrices", count);
+        }
+    }
+
+    @Override
+    public void exportProducts(Format format, OutputStream outputStream) throws IOException {
+        log.debug("Request to export all Products as {}", format);
+        try (Stream<ProductExportDTO> rows = productRepository.streamAllForExport()) {
+            long count = export(
+                rows,
+                format,
+                PRODUCT_HEADER,
+                row ->
+                    new Object[] {
+                        row.getId(),
+                        row.getTitle(),
+                        row.getDescription(),
+                        row.getStatus(),
+                        row.getCategoryId(),
+                        row.getOwnerId(),
+                    },
+                outputStream
+            );
+            log.debug("Exported {} Products", count);
+        }
+    }
+
+    private <T> long export(Stream<T> rows, Format format, String[] header, Function<T, Object[]> columns, OutputStream outputStream)
+        throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long count = format == Format.CSV ? writeCsv(rows, header, columns, writer) : writeJsonLines(rows, writer);
+        writer.flush();
+        return count;
+    }
+
+    private static <T> long writeCsv(Stream<T> rows, String[] header, Function<T, Object[]> columns, Writer writer) throws IOException {
+        writeCsvRow(writer, header);
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writeCsvRow(writer, columns.apply(iterator.next()));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes one JSON document per line through a single generator, which is only flushed to the writer once it is
+     * closed.
+     */
+    private <T> long writeJsonLines(Stream<T> rows, Writer writer) throws IOException {
+        long count = 0;
+        try (SequenceWriter sequenceWriter = objectWriter.writeValues(writer)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                sequenceWriter.write(iterator.next());
+                count++;
+            }
+        }
+        if (count > 0) {
+            writer.write('\n');
+        }
+        return count;
+    }
+
+    private static void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvValue(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Writes a value as per RFC 4180: quoted, with its quotes doubled, if it holds a separator, a quote or a line break.
+     */
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quoted = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,151 @@
+package com.ayham.testapp.service.impl;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.service.PriceAnalyticsService;
+import com.ayham.testapp.service.dto.PriceAnalyticsBatchDTO;
+import com.ayham.testapp.service.dto.PriceAnalyticsResultDTO;
+import com.ayham.testapp.service.dto.PriceWindowDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service Implementation computing price statistics of many products and categories at once.
+ * <p>
+ * Each window and chunk of ids is one grouped query, run on a bounded pool. Once its queue is full, the calling thread
+ * runs the query itself, which throttles large batches instead of rejecting them.
+ */
+@Service
+public class PriceAnalyticsServiceImpl implements PriceAnalyticsService {
+
+    public static final String PRODUCT_SCOPE = "product";
+
+    public static final String CATEGORY_SCOPE = "category";
+
+    private final Logger log = LoggerFactory.getLogger(PriceAnalyticsServiceImpl.class);
+
+    private final ProductPriceRepository productPriceRepository;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxIdsPerQuery;
+
+    public PriceAnalyticsServiceImpl(ProductPriceRepository productPriceRepository, ApplicationProperties applicationProperties) {
+        ApplicationProperties.PriceAnalytics properties = applicationProperties.getPriceAnalytics();
+        this.productPriceRepository = productPriceRepository;
+        this.maxIdsPerQuery = properties.getMaxIdsPerQuery();
+        this.executor =
+            new ThreadPoolExecutor(
+                properties.getPoolSize(),
+                properties.getPoolSize(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("price-analytics-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+    }
+
+    @Override
+    public void computeBatch(PriceAnalyticsBatchDTO batch, Consumer<PriceAnalyticsResultDTO> consumer) {
+        log.debug("Request to compute the price statistics batch : {}", batch);
+        CompletionService<List<PriceAnalyticsResultDTO>> completionService = new ExecutorCompletionService<>(executor);
+        List<Long> productIds = distinct(batch.getProductIds());
+        List<Long> categoryIds = distinct(batch.getCategoryIds());
+        int submitted = 0;
+        for (PriceWindowDTO window : batch.getWindows()) {
+            submitted +=
+                submit(
+                    completionService,
+                    PRODUCT_SCOPE,
+                    window,
+                    productIds,
+                    ids -> productPriceRepository.getStatisticsByProduct(ids, window.getStartTime(), window.getEndTime())
+                );
+            submitted +=
+                submit(
+                    completionService,
+                    CATEGORY_SCOPE,
+                    window,
+                    categoryIds,
+                    batch.isSubcategories()
+                        ? ids -> productPriceRepository.getStatisticsByCategoryTree(ids, window.getStartTime(), window.getEndTime())
+                        : ids -> productPriceRepository.getStatisticsByCategory(ids, window.getStartTime(), window.getEndTime())
+                );
+        }
+        try {
+            for (int i = 0; i < submitted; i++) {
+                completionService.take().get().forEach(consumer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the price statistics", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private int submit(
+        CompletionService<List<PriceAnalyticsResultDTO>> completionService,
+        String scope,
+        PriceWindowDTO window,
+        List<Long> ids,
+        Function<Collection<Long>, List<PriceAnalyticsResultDTO>> query
+    ) {
+        int submitted = 0;
+        for (int from = 0; from < ids.size(); from += maxIdsPerQuery) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + maxIdsPerQuery));
+            completionService.submit(() -> withEmptyResults(chunk, query.apply(chunk), scope, window));
+            submitted++;
+        }
+        return submitted;
+    }
+
+    /**
+     * Adds an empty result for every id without a price in the window, so each requested id gets an answer.
+     */
+    private static List<PriceAnalyticsResultDTO> withEmptyResults(
+        List<Long> ids,
+        List<PriceAnalyticsResultDTO> found,
+        String scope,
+        PriceWindowDTO window
+    ) {
+        Map<Long, PriceAnalyticsResultDTO> byId = new HashMap<>();
+        found.forEach(result -> byId.put(result.getId(), result));
+        List<PriceAnalyticsResultDTO> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PriceAnalyticsResultDTO result = byId.get(id);
+            results.add((result != null ? result : new PriceAnalyticsResultDTO(id, null, null, null, null)).window(scope, window));
+        }
+        return results;
+    }
+
+    private static List<Long> distinct(List<Long> ids) {
+        return ids == null ? List.of() : new ArrayList<>(new LinkedHashSet<>(ids));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
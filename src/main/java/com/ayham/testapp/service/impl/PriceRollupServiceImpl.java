@@ -0,0 +1,730 @@
+package com.ayham.testapp.service.impl;
+
+import com.ayham.testapp.config.ApplicationProperties;
+import com.ayham.testapp.domain.PriceRollup;
+import com.ayham.testapp.domain.ProductPrice;
+import com.ayham.testapp.domain.enumeration.RollupGranularity;
+import com.ayham.testapp.domain.enumeration.RollupScope;
+import com.ayham.testapp.repository.CategoryRepository;
+import com.ayham.testapp.repository.PriceRollupRepository;
+import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.service.PriceRollupService;
+import com.ayham.testapp.service.dto.PriceIntervalDTO;
+import com.ayham.testapp.service.dto.PriceRangeStatisticsDTO;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service Implementation for maintaining and querying {@link PriceRollup}.
+ * <p>
+ * Each productPrice is split into the whole years, months and days it covers and the hours left at its ends, within the
+ * {@code application.price-rollup.horizon-start-year} and {@code horizon-end-year}, so a price is written to a bounded
+ * number of buckets however long it is. A change to a productPrice is turned into per bucket deltas which are applied to
+ * the rows under a row lock, taken in a fixed order. Sums and counts are exact, only the min and max of a bucket losing
+ * its extreme price are recomputed from the productPrices.
+ */
+@Service
+@Transactional
+public class PriceRollupServiceImpl implements PriceRollupService {
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    /**
+     * The granularities a price can cover entirely, coarsest first. The hours left at the ends of a price go to hour buckets.
+     */
+    private static final RollupGranularity[] COARSE_GRANULARITIES = {
+        RollupGranularity.YEAR,
+        RollupGranularity.MONTH,
+        RollupGranularity.DAY,
+    };
+
+    private static final Comparator<BucketKey> SERIES_ORDER = Comparator
+        .comparing((BucketKey key) -> key.scope)
+        .thenComparing(key -> key.scopeId)
+        .thenComparing(key -> key.granularity);
+
+    private static final int MAX_BUCKETS_PER_QUERY = 500;
+
+    private final Logger log = LoggerFactory.getLogger(PriceRollupServiceImpl.class);
+
+    private final PriceRollupRepository priceRollupRepository;
+
+    private final ProductPriceRepository productPriceRepository;
+
+    private final ProductRepository productRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final ApplicationProperties.PriceRollup properties;
+
+    private final long horizonStart;
+
+    private final long horizonEnd;
+
+    public PriceRollupServiceImpl(
+        PriceRollupRepository priceRollupRepository,
+        ProductPriceRepository productPriceRepository,
+        ProductRepository productRepository,
+        CategoryRepository categoryRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.priceRollupRepository = priceRollupRepository;
+        this.productPriceRepository = productPriceRepository;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getPriceRollup();
+        this.horizonStart = startOfYear(properties.getHorizonStartYear());
+        this.horizonEnd = startOfYear(properties.getHorizonEndYear());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void onPriceChanged(ProductPrice before, ProductPrice after) {
+        if (!properties.isEnabled() || isSameInterval(before, after)) {
+            return;
+        }
+        log.debug("Request to update PriceRollups from {} to {}", before, after);
+        Map<BucketKey, BucketDelta> deltas = new HashMap<>();
+        collect(deltas, before, -1);
+        collect(deltas, after, 1);
+        apply(deltas);
+    }
+
+    @Override
+    public void onProductCategoryChanged(Long productId, Long previousCategoryId, Long categoryId) {
+        if (!properties.isEnabled() || Objects.equals(previousCategoryId, categoryId)) {
+            return;
+        }
+        log.debug("Request to move the PriceRollups of Product {} from Category {} to {}", productId, previousCategoryId, categoryId);
+        Map<BucketKey, BucketDelta> deltas = new HashMap<>();
+        try (Stream<PriceIntervalDTO> intervals = productPriceRepository.streamAllIntervalsForProduct(productId)) {
+            Iterator<PriceIntervalDTO> iterator = intervals.iterator();
+            while (iterator.hasNext()) {
+                PriceIntervalDTO interval = iterator.next();
+                if (previousCategoryId != null) {
+                    addContribution(deltas, RollupScope.CATEGORY, previousCategoryId, interval, -1);
+                }
+                if (categoryId != null) {
+                    addContribution(deltas, RollupScope.CATEGORY, categoryId, interval, 1);
+                }
+            }
+        }
+        apply(deltas);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceRangeStatisticsDTO getStatistics(RollupScope scope, Long scopeId, Instant startDate, Instant endDate) {
+        log.debug("Request to get the price statistics of {} {} between {} and {}", scope, scopeId, startDate, endDate);
+        long start = startDate.toEpochMilli();
+        long end = endDate.toEpochMilli();
+        long from = Math.max(ceil(RollupGranularity.HOUR, start), horizonStart);
+        long to = Math.min(floor(RollupGranularity.HOUR, end), horizonEnd);
+        if (!properties.isEnabled() || from >= to) {
+            return rawStatistics(scope, scopeId, start, end);
+        }
+        return bucketStatistics(scope, scopeId, from, to)
+            .plus(rawStatistics(scope, scopeId, start, from))
+            .plus(rawStatistics(scope, scopeId, to, end));
+    }
+
+    /**
+     * Combines the buckets inside {@code [from, to)}, both on hour boundaries. The day, month and year buckets only partly
+     * inside hold prices covering them entirely, so their part inside is exactly their price sum times the overlap.
+     */
+    private PriceRangeStatisticsDTO bucketStatistics(RollupScope scope, Long scopeId, long from, long to) {
+        PriceRangeStatisticsDTO statistics = priceRollupRepository.getStatistics(
+            scope,
+            scopeId,
+            Instant.ofEpochMilli(from),
+            Instant.ofEpochMilli(to),
+            Instant.ofEpochMilli(ceil(RollupGranularity.DAY, from)),
+            Instant.ofEpochMilli(floor(RollupGranularity.DAY, to)),
+            Instant.ofEpochMilli(ceil(RollupGranularity.MONTH, from)),
+            Instant.ofEpochMilli(floor(RollupGranularity.MONTH, to)),
+            Instant.ofEpochMilli(ceil(RollupGranularity.YEAR, from)),
+            Instant.ofEpochMilli(floor(RollupGranularity.YEAR, to))
+        );
+        Map<BucketKey, Long> overlaps = new HashMap<>();
+        for (RollupGranularity granularity : COARSE_GRANULARITIES) {
+            long first = floor(granularity, from);
+            if (first < from) {
+                overlaps.put(new BucketKey(scope, scopeId, granularity, first), Math.min(next(granularity, first), to) - from);
+            }
+            long last = floor(granularity, to);
+            if (last >= from && last < to) {
+                overlaps.put(new BucketKey(scope, scopeId, granularity, last), to - last);
+            }
+        }
+        if (overlaps.isEmpty()) {
+            return statistics;
+        }
+        Set<Instant> bucketStarts = new HashSet<>();
+        overlaps.keySet().forEach(key -> bucketStarts.add(Instant.ofEpochMilli(key.bucketStart)));
+        for (PriceRollup rollup : priceRollupRepository.findCoarseBuckets(scope, scopeId, bucketStarts)) {
+            Long overlap = overlaps.get(BucketKey.of(rollup));
+            if (overlap != null && rollup.getPriceCount() > 0) {
+                statistics =
+                    statistics.plus(
+                        new PriceRangeStatisticsDTO(
+                            BigDecimal.valueOf(rollup.getPriceSum()).multiply(BigDecimal.valueOf(overlap)),
+                            Math.multiplyExact(rollup.getPriceCount(), overlap),
+                            rollup.getMinPrice(),
+                            rollup.getMaxPrice()
+                        )
+                    );
+            }
+        }
+        return statistics;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long rebuild() {
+        log.debug("Request to rebuild all PriceRollups");
+        transactionTemplate.executeWithoutResult(status -> priceRollupRepository.deleteAllInBatch());
+        List<Long> productIds = productRepository.findAllIds();
+        List<Long> categoryIds = categoryRepository.findAllIds();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            properties.getRebuildThreads(),
+            new CustomizableThreadFactory("price-rollup-rebuild-")
+        );
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            submitChunks(executor, chunks, RollupScope.PRODUCT, productIds);
+            submitChunks(executor, chunks, RollupScope.CATEGORY, categoryIds);
+            long written = 0;
+            for (Future<Integer> chunk : chunks) {
+                written += chunk.get();
+            }
+            log.info("Rebuilt {} PriceRollups for {} products and {} categories", written, productIds.size(), categoryIds.size());
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding the price rollups", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitChunks(ExecutorService executor, List<Future<Integer>> chunks, RollupScope scope, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += properties.getRebuildChunkSize()) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + properties.getRebuildChunkSize()));
+            chunks.add(executor.submit(() -> transactionTemplate.execute(status -> rebuildChunk(scope, chunk))));
+        }
+    }
+
+    private int rebuildChunk(RollupScope scope, List<Long> scopeIds) {
+        List<PriceRollup> rollups = new ArrayList<>();
+        for (Long scopeId : scopeIds) {
+            Map<BucketKey, BucketDelta> deltas = new HashMap<>();
+            try (Stream<PriceIntervalDTO> intervals = streamAllIntervals(scope, scopeId)) {
+                Iterator<PriceIntervalDTO> iterator = intervals.iterator();
+                while (iterator.hasNext()) {
+                    addContribution(deltas, scope, scopeId, iterator.next(), 1);
+                }
+            }
+            deltas.forEach((key, delta) -> {
+                PriceRollup rollup = key.newRollup();
+                delta.applyTo(rollup);
+                rollup.setMinPrice(delta.addedMin);
+                rollup.setMaxPrice(delta.addedMax);
+                rollups.add(rollup);
+            });
+        }
+        priceRollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+
+    private boolean isSameInterval(ProductPrice before, ProductPrice after) {
+        return (
+            before != null &&
+            after != null &&
+            Objects.equals(productId(before), productId(after)) &&
+            Objects.equals(before.getStartDate(), after.getStartDate()) &&
+            Objects.equals(before.getEndDate(), after.getEndDate()) &&
+            Objects.equals(before.getPrice(), after.getPrice())
+        );
+    }
+
+    private void collect(Map<BucketKey, BucketDelta> deltas, ProductPrice productPrice, int sign) {
+        Long productId = productId(productPrice);
+        if (
+            productId == null ||
+            productPrice.getPrice() == null ||
+            productPrice.getStartDate() == null ||
+            productPrice.getEndDate() == null ||
+            !productPrice.getStartDate().isBefore(productPrice.getEndDate())
+        ) {
+            return;
+        }
+        PriceIntervalDTO interval = new PriceIntervalDTO(productPrice.getPrice(), productPrice.getStartDate(), productPrice.getEndDate());
+        addContribution(deltas, RollupScope.PRODUCT, productId, interval, sign);
+        productRepository
+            .findCategoryId(productId)
+            .ifPresent(categoryId -> addContribution(deltas, RollupScope.CATEGORY, categoryId, interval, sign));
+    }
+
+    private static Long productId(ProductPrice productPrice) {
+        return productPrice != null && productPrice.getProduct() != null ? productPrice.getProduct().getId() : null;
+    }
+
+    private void addContribution(Map<BucketKey, BucketDelta> deltas, RollupScope scope, Long scopeId, PriceIntervalDTO interval, int sign) {
+        forEachPiece(
+            interval,
+            (granularity, bucketStart, millis) ->
+                deltas
+                    .computeIfAbsent(new BucketKey(scope, scopeId, granularity, bucketStart), key -> new BucketDelta())
+                    .add(interval.getPrice(), millis, sign)
+        );
+    }
+
+    /**
+     * Splits the part of a price within the horizon into the largest buckets it covers entirely, going forward from its
+     * start, and the hours left at its ends.
+     */
+    private void forEachPiece(PriceIntervalDTO interval, PieceConsumer consumer) {
+        long end = Math.min(interval.getEndMillis(), horizonEnd);
+        long cursor = Math.max(interval.getStartMillis(), horizonStart);
+        while (cursor < end) {
+            RollupGranularity granularity = RollupGranularity.HOUR;
+            long bucketStart = floor(RollupGranularity.HOUR, cursor);
+            long pieceEnd = Math.min(next(RollupGranularity.HOUR, bucketStart), end);
+            for (RollupGranularity coarse : COARSE_GRANULARITIES) {
+                if (floor(coarse, cursor) == cursor && next(coarse, cursor) <= end) {
+                    granularity = coarse;
+                    bucketStart = cursor;
+                    pieceEnd = next(coarse, cursor);
+                    break;
+                }
+            }
+            consumer.accept(granularity, bucketStart, pieceEnd - cursor);
+            cursor = pieceEnd;
+        }
+    }
+
+    /**
+     * Applies the deltas to the rows, locked for the rest of the transaction. The missing rows are created beforehand in
+     * their own transactions, so concurrent writers creating the same bucket both end up updating the one row. Buckets
+     * left without prices are kept, so that a writer never finds a bucket it created gone, until the next rebuild.
+     */
+    private void apply(Map<BucketKey, BucketDelta> deltas) {
+        deltas.values().removeIf(BucketDelta::isEmpty);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<BucketKey, SortedSet<Long>> series = new TreeMap<>(SERIES_ORDER);
+        deltas.keySet().forEach(key -> series.computeIfAbsent(key.series(), k -> new TreeSet<>()).add(key.bucketStart));
+        createMissingBuckets(series, deltas);
+        Map<BucketKey, PriceRollup> rollups = lockBuckets(series);
+        Map<BucketKey, PriceRollup> stale = new HashMap<>();
+        deltas.forEach((key, delta) -> {
+            PriceRollup rollup = rollups.get(key);
+            if (rollup == null) {
+                log.warn("Missing PriceRollup {}, the rollups should be rebuilt", key);
+                return;
+            }
+            delta.applyTo(rollup);
+            if (rollup.getPriceCount() <= 0) {
+                rollup.setMinPrice(null);
+                rollup.setMaxPrice(null);
+            } else if (delta.removesExtremeOf(rollup)) {
+                stale.put(key, rollup);
+            } else {
+                rollup.setMinPrice(min(rollup.getMinPrice(), delta.addedMin));
+                rollup.setMaxPrice(max(rollup.getMaxPrice(), delta.addedMax));
+            }
+        });
+        recomputeExtremes(stale);
+    }
+
+    private void createMissingBuckets(Map<BucketKey, SortedSet<Long>> series, Map<BucketKey, BucketDelta> deltas) {
+        List<BucketKey> missing = new ArrayList<>();
+        series.forEach((key, bucketStarts) -> {
+            List<Long> added = new ArrayList<>();
+            for (Long bucketStart : bucketStarts) {
+                if (deltas.get(key.at(bucketStart)).priceCount > 0) {
+                    added.add(bucketStart);
+                }
+            }
+            Set<Instant> existing = new HashSet<>();
+            for (List<Instant> chunk : chunks(added)) {
+                existing.addAll(priceRollupRepository.findBucketStarts(key.scope, key.scopeId, key.granularity, chunk));
+            }
+            for (Long bucketStart : added) {
+                if (!existing.contains(Instant.ofEpochMilli(bucketStart))) {
+                    missing.add(key.at(bucketStart));
+                }
+            }
+        });
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                List<PriceRollup> rollups = new ArrayList<>();
+                missing.forEach(key -> rollups.add(key.newRollup()));
+                priceRollupRepository.saveAllAndFlush(rollups);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Some of {} PriceRollups were created concurrently, creating them one by one", missing.size());
+            for (BucketKey key : missing) {
+                try {
+                    newTransactionTemplate.executeWithoutResult(status -> priceRollupRepository.saveAndFlush(key.newRollup()));
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.debug("PriceRollup {} was created concurrently", key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Locks the rows series by series in a fixed order, and in bucket order within a series.
+     */
+    private Map<BucketKey, PriceRollup> lockBuckets(Map<BucketKey, SortedSet<Long>> series) {
+        Map<BucketKey, PriceRollup> rollups = new HashMap<>();
+        series.forEach((key, bucketStarts) -> {
+            for (List<Instant> chunk : chunks(bucketStarts)) {
+                priceRollupRepository
+                    .findBucketsForUpdate(key.scope, key.scopeId, key.granularity, chunk)
+                    .forEach(rollup -> rollups.put(BucketKey.of(rollup), rollup));
+            }
+        });
+        return rollups;
+    }
+
+    private static List<List<Instant>> chunks(Iterable<Long> bucketStarts) {
+        List<List<Instant>> chunks = new ArrayList<>();
+        List<Instant> chunk = new ArrayList<>();
+        for (Long bucketStart : bucketStarts) {
+            if (chunk.size() == MAX_BUCKETS_PER_QUERY) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+            chunk.add(Instant.ofEpochMilli(bucketStart));
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Recomputes the min and max of the given buckets with one pass over the productPrices overlapping them, counting only
+     * the prices having a piece in each bucket.
+     */
+    private void recomputeExtremes(Map<BucketKey, PriceRollup> stale) {
+        Map<BucketKey, List<PriceRollup>> byOwner = new HashMap<>();
+        stale.forEach((key, rollup) -> byOwner.computeIfAbsent(key.owner(), k -> new ArrayList<>()).add(rollup));
+        byOwner.forEach((owner, rollups) -> {
+            long from = Long.MAX_VALUE;
+            long to = Long.MIN_VALUE;
+            for (PriceRollup rollup : rollups) {
+                rollup.setMinPrice(null);
+                rollup.setMaxPrice(null);
+                long bucketStart = rollup.getBucketStart().toEpochMilli();
+                from = Math.min(from, bucketStart);
+                to = Math.max(to, next(rollup.getGranularity(), bucketStart));
+            }
+            try (Stream<PriceIntervalDTO> intervals = streamIntervals(owner.scope, owner.scopeId, from, to)) {
+                Iterator<PriceIntervalDTO> iterator = intervals.iterator();
+                while (iterator.hasNext()) {
+                    PriceIntervalDTO interval = iterator.next();
+                    forEachPiece(
+                        interval,
+                        (granularity, bucketStart, millis) -> {
+                            PriceRollup rollup = stale.get(new BucketKey(owner.scope, owner.scopeId, granularity, bucketStart));
+                            if (rollup != null) {
+                                rollup.setMinPrice(min(rollup.getMinPrice(), interval.getPrice()));
+                                rollup.setMaxPrice(max(rollup.getMaxPrice(), interval.getPrice()));
+                            }
+                        }
+                    );
+                }
+            }
+        });
+    }
+
+    private PriceRangeStatisticsDTO rawStatistics(RollupScope scope, Long scopeId, long start, long end) {
+        if (start >= end) {
+            return PriceRangeStatisticsDTO.EMPTY;
+        }
+        BigDecimal weightedSum = BigDecimal.ZERO;
+        long coveredMillis = 0;
+        Long minPrice = null;
+        Long maxPrice = null;
+        try (Stream<PriceIntervalDTO> intervals = streamIntervals(scope, scopeId, start, end)) {
+            Iterator<PriceIntervalDTO> iterator = intervals.iterator();
+            while (iterator.hasNext()) {
+                PriceIntervalDTO interval = iterator.next();
+                long overlap = Math.min(interval.getEndMillis(), end) - Math.max(interval.getStartMillis(), start);
+                weightedSum = weightedSum.add(BigDecimal.valueOf(interval.getPrice()).multiply(BigDecimal.valueOf(overlap)));
+                coveredMillis = Math.addExact(coveredMillis, overlap);
+                minPrice = min(minPrice, interval.getPrice());
+                maxPrice = max(maxPrice, interval.getPrice());
+            }
+        }
+        return new PriceRangeStatisticsDTO(weightedSum, coveredMillis, minPrice, maxPrice);
+    }
+
+    private Stream<PriceIntervalDTO> streamIntervals(RollupScope scope, Long scopeId, long start, long end) {
+        Instant startDate = Instant.ofEpochMilli(start);
+        Instant endDate = Instant.ofEpochMilli(end);
+        return scope == RollupScope.PRODUCT
+            ? productPriceRepository.streamIntervalsForProduct(scopeId, startDate, endDate)
+            : productPriceRepository.streamIntervalsForCategory(scopeId, startDate, endDate);
+    }
+
+    private Stream<PriceIntervalDTO> streamAllIntervals(RollupScope scope, Long scopeId) {
+        return scope == RollupScope.PRODUCT
+            ? productPriceRepository.streamAllIntervalsForProduct(scopeId)
+            : productPriceRepository.streamAllIntervalsForCategory(scopeId);
+    }
+
+    private static Long min(Long current, long price) {
+        return current == null || price < current ? price : current;
+    }
+
+    private static Long max(Long current, long price) {
+        return current == null || price > current ? price : current;
+    }
+
+    private static Long min(Long current, Long price) {
+        return price == null ? current : min(current, price.longValue());
+    }
+
+    private static Long max(Long current, Long price) {
+        return price == null ? current : max(current, price.longValue());
+    }
+
+    private static long floor(RollupGranularity granularity, long millis) {
+        switch (granularity) {
+            case HOUR:
+                return Math.floorDiv(millis, HOUR_MILLIS) * HOUR_MILLIS;
+            case DAY:
+                return Math.floorDiv(millis, DAY_MILLIS) * DAY_MILLIS;
+            case MONTH:
+                return Instant
+                    .ofEpochMilli(millis)
+                    .atZone(ZoneOffset.UTC)
+                    .withDayOfMonth(1)
+                    .truncatedTo(ChronoUnit.DAYS)
+                    .toInstant()
+                    .toEpochMilli();
+            default:
+                return Instant
+                    .ofEpochMilli(millis)
+                    .atZone(ZoneOffset.UTC)
+                    .withDayOfYear(1)
+                    .truncatedTo(ChronoUnit.DAYS)
+                    .toInstant()
+                    .toEpochMilli();
+        }
+    }
+
+    private static long ceil(RollupGranularity granularity, long millis) {
+        long floor = floor(granularity, millis);
+        return floor == millis ? floor : next(granularity, floor);
+    }
+
+    private static long next(RollupGranularity granularity, long bucketStart) {
+        switch (granularity) {
+            case HOUR:
+                return bucketStart + HOUR_MILLIS;
+            case DAY:
+                return bucketStart + DAY_MILLIS;
+            case MONTH:
+                return Instant.ofEpochMilli(bucketStart).atZone(ZoneOffset.UTC).plusMonths(1).toInstant().toEpochMilli();
+            default:
+                return Instant.ofEpochMilli(bucketStart).atZone(ZoneOffset.UTC).plusYears(1).toInstant().toEpochMilli();
+        }
+    }
+
+    private static long startOfYear(int year) {
+        return ZonedDateTime.of(year, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Receives the pieces a price is split into.
+     */
+    @FunctionalInterface
+    private interface PieceConsumer {
+        void accept(RollupGranularity granularity, long bucketStart, long millis);
+    }
+
+    private static final class BucketKey {
+
+        private final RollupScope scope;
+
+        private final Long scopeId;
+
+        private final RollupGranularity granularity;
+
+        private final long bucketStart;
+
+        private BucketKey(RollupScope scope, Long scopeId, RollupGranularity granularity, long bucketStart) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+        }
+
+        private static BucketKey of(PriceRollup rollup) {
+            return new BucketKey(rollup.getScope(), rollup.getScopeId(), rollup.getGranularity(), rollup.getBucketStart().toEpochMilli());
+        }
+
+        private BucketKey series() {
+            return new BucketKey(scope, scopeId, granularity, 0);
+        }
+
+        private BucketKey at(long bucketStart) {
+            return new BucketKey(scope, scopeId, granularity, bucketStart);
+        }
+
+        private BucketKey owner() {
+            return new BucketKey(scope, scopeId, null, 0);
+        }
+
+        private PriceRollup newRollup() {
+            return new PriceRollup().scope(scope).scopeId(scopeId).granularity(granularity).bucketStart(Instant.ofEpochMilli(bucketStart));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return (
+                bucketStart == other.bucketStart &&
+                scope == other.scope &&
+                granularity == other.granularity &&
+                Objects.equals(scopeId, other.scopeId)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, scopeId, granularity, bucketStart);
+        }
+
+        @Override
+        public String toString() {
+            return scope + " " + scopeId + " " + granularity + " " + Instant.ofEpochMilli(bucketStart);
+        }
+    }
+
+    private static final class BucketDelta {
+
+        private long priceSum;
+
+        private long priceCount;
+
+        private BigDecimal weightedSum = BigDecimal.ZERO;
+
+        private long coveredMillis;
+
+        private Long addedMin;
+
+        private Long addedMax;
+
+        private Long removedMin;
+
+        private Long removedMax;
+
+        private void add(long price, long overlap, int sign) {
+            priceSum += sign * price;
+            priceCount += sign;
+            weightedSum = weightedSum.add(BigDecimal.valueOf(sign * price).multiply(BigDecimal.valueOf(overlap)));
+            coveredMillis += sign * overlap;
+            if (sign > 0) {
+                addedMin = min(addedMin, price);
+                addedMax = max(addedMax, price);
+            } else {
+                removedMin = min(removedMin, price);
+                removedMax = max(removedMax, price);
+            }
+        }
+
+        /**
+         * @return true if the delta leaves its bucket unchanged, like the same piece removed and added back.
+         */
+        private boolean isEmpty() {
+            return (
+                priceSum == 0 &&
+                priceCount == 0 &&
+                coveredMillis == 0 &&
+                weightedSum.signum() == 0 &&
+                Objects.equals(addedMin, removedMin) &&
+                Objects.equals(addedMax, removedMax)
+            );
+        }
+
+        private void applyTo(PriceRollup rollup) {
+            rollup.setPriceSum(rollup.getPriceSum() + priceSum);
+            rollup.setPriceCount(rollup.getPriceCount() + priceCount);
+            rollup.setWeightedSum(rollup.getWeightedSum().add(weightedSum));
+            rollup.setCoveredMillis(rollup.getCoveredMillis() + coveredMillis);
+        }
+
+        private boolean removesExtremeOf(PriceRollup rollup) {
+            return (
+                (removedMin != null && (rollup.getMinPrice() == null || removedMin <= rollup.getMinPrice())) ||
+                (removedMax != null && (rollup.getMaxPrice() == null || removedMax >= rollup.getMaxPrice()))
+            );
+        }
+    }
+}
@@ -1,15 +1,41 @@
 package com.ayham.testapp.service.impl;
 
+import com.ayham.testapp.config.ApplicationProperties;
 import com.ayham.testapp.domain.ProductPrice;
+import com.ayham.testapp.domain.enumeration.RollupScope;
 import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.security.SecurityUtils;
+import com.ayham.testapp.service.Exception.InvalidTokenException;
+import com.ayham.testapp.service.PriceIntervalIndex;
+import com.ayham.testapp.service.PriceRollupService;
 import com.ayham.testapp.service.ProductPriceService;
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import com.ayham.testapp.service.dto.BulkItemResultDTO.Outcome;
+import com.ayham.testapp.service.dto.PriceIntervalDTO;
+import com.ayham.testapp.service.dto.PriceRangeStatisticsDTO;
+import com.ayham.testapp.service.dto.PriceStatisticsDTO;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -23,20 +49,44 @@ public class ProductPriceServiceImpl implements ProductPriceService {
 
     private final ProductPriceRepository productPriceRepository;
 
-    public ProductPriceServiceImpl(ProductPriceRepository productPriceRepository) {
+    private final PriceRollupService priceRollupService;
+
+    private final PriceIntervalIndex priceIntervalIndex;
+
+    private final ProductRepository productRepository;
+
+    private final BulkOperations bulkOperations;
+
+    public ProductPriceServiceImpl(
+        ProductPriceRepository productPriceRepository,
+        PriceRollupService priceRollupService,
+        PriceIntervalIndex priceIntervalIndex,
+        ProductRepository productRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
         this.productPriceRepository = productPriceRepository;
+        this.priceRollupService = priceRollupService;
+        this.priceIntervalIndex = priceIntervalIndex;
+        this.productRepository = productRepository;
+        this.bulkOperations = new BulkOperations(transactionManager, applicationProperties.getBulk().getChunkSize());
     }
 
     @Override
     public ProductPrice save(ProductPrice productPrice) {
         log.debug("Request to save ProductPrice : {}", productPrice);
-        return productPriceRepository.save(productPrice);
+        ProductPrice result = productPriceRepository.save(productPrice);
+        onPriceChanged(null, result);
+        return result;
     }
 
     @Override
     public ProductPrice update(ProductPrice productPrice) {
         log.debug("Request to update ProductPrice : {}", productPrice);
-        return productPriceRepository.save(productPrice);
+        ProductPrice before = productPriceRepository.findById(productPrice.getId()).map(ProductPriceServiceImpl::copyOf).orElse(null);
+        ProductPrice result = productPriceRepository.save(productPrice);
+        onPriceChanged(before, result);
+        return result;
     }
 
     @Override
@@ -46,66 +96,392 @@ public class ProductPriceServiceImpl implements ProductPriceService {
         return productPriceRepository
             .findById(productPrice.getId())
             .map(existingProductPrice -> {
-                if (productPrice.getStartDate() != null) {
-                    existingProductPrice.setStartDate(productPrice.getStartDate());
-                }
-                if (productPrice.getEndDate() != null) {
-                    existingProductPrice.setEndDate(productPrice.getEndDate());
-                }
-                if (productPrice.getPrice() != null) {
-                    existingProductPrice.setPrice(productPrice.getPrice());
-                }
-
-                return existingProductPrice;
-            })
-            .map(productPriceRepository::save);
+                ProductPrice before = copyOf(existingProductPrice);
+                ProductPrice result = productPriceRepository.save(merge(existingProductPrice, productPrice));
+                onPriceChanged(before, result);
+                return result;
+            });
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductPrice> findAll() {
         log.debug("Request to get all ProductPrices");
-        return productPriceRepository.findAll();
+        return productPriceRepository.findAllWithEagerRelationships();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ProductPrice> findSliceOrderById(Long afterId, int size) {
+        log.debug("Request to get {} ProductPrices after id {}", size, afterId);
+        if (afterId == null) {
+            return productPriceRepository.findSliceByOrderByIdAsc(PageRequest.of(0, size));
+        }
+        return productPriceRepository.findSliceAfterId(afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ProductPrice> findSliceOrderByStartDate(Instant afterStartDate, Long afterId, int size) {
+        log.debug("Request to get {} ProductPrices after start date {} and id {}", size, afterStartDate, afterId);
+        if (afterId != null && afterStartDate == null) {
+            return productPriceRepository.findSliceWithoutStartDateAfterId(afterId, PageRequest.of(0, size));
+        }
+        Slice<ProductPrice> slice = afterId == null
+            ? productPriceRepository.findSliceWithStartDate(PageRequest.of(0, size))
+            : productPriceRepository.findSliceAfterStartDate(afterStartDate, afterId, PageRequest.of(0, size));
+        if (slice.hasNext()) {
+            return slice;
+        }
+        // The productPrices with a start date are all read, the slice goes on with the ones without
+        List<ProductPrice> content = new ArrayList<>(slice.getContent());
+        int remaining = size - content.size();
+        boolean hasNext;
+        if (remaining == 0) {
+            hasNext = productPriceRepository.existsByStartDateIsNull();
+        } else {
+            Slice<ProductPrice> withoutStartDate = productPriceRepository.findSliceWithoutStartDateAfterId(
+                Long.MIN_VALUE,
+                PageRequest.of(0, remaining)
+            );
+            content.addAll(withoutStartDate.getContent());
+            hasNext = withoutStartDate.hasNext();
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductPrice> findOne(Long id) {
         log.debug("Request to get ProductPrice : {}", id);
-        return productPriceRepository.findById(id);
+        return productPriceRepository.findOneWithEagerRelationships(id);
     }
 
     @Override
     public void delete(Long id) {
         log.debug("Request to delete ProductPrice : {}", id);
+        Optional<ProductPrice> before = productPriceRepository.findById(id).map(ProductPriceServiceImpl::copyOf);
         productPriceRepository.deleteById(id);
+        before.ifPresent(productPrice -> onPriceChanged(productPrice, null));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> saveAll(List<ProductPrice> productPrices) {
+        log.debug("Request to save {} ProductPrices", productPrices.size());
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        boolean[] sentWithId = new boolean[productPrices.size()];
+        for (int i = 0; i < sentWithId.length; i++) {
+            sentWithId[i] = productPrices.get(i) != null && productPrices.get(i).getId() != null;
+        }
+        return bulkOperations.run(
+            productPrices,
+            productPrice -> null,
+            (chunk, offset) -> {
+                Set<Long> ownedProductIds = findProductIdsOwnedBy(chunk.stream().filter(Objects::nonNull), currentUserId);
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    ProductPrice productPrice = chunk.get(i);
+                    int index = offset + i;
+                    if (productPrice == null) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.INVALID, "A productPrice is required"));
+                    } else if (sentWithId[index]) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.INVALID, "A new productPrice cannot already have an ID"));
+                    } else if (productId(productPrice) == null) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.INVALID, "A product is required"));
+                    } else if (!ownedProductIds.contains(productId(productPrice))) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.FORBIDDEN, "The product must be owned by the current user"));
+                    } else {
+                        // clears the id assigned by a chunk that failed to commit, and is written again item by item
+                        ProductPrice result = productPriceRepository.save(productPrice.id(null));
+                        onPriceChanged(null, result);
+                        results.add(new BulkItemResultDTO(index, result.getId(), Outcome.CREATED));
+                    }
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> partialUpdateAll(List<ProductPrice> productPrices) {
+        log.debug("Request to partially update {} ProductPrices", productPrices.size());
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        return bulkOperations.run(
+            productPrices,
+            productPrice -> productPrice != null ? productPrice.getId() : null,
+            (chunk, offset) -> {
+                Map<Long, ProductPrice> existingProductPrices = findAllById(
+                    chunk.stream().filter(productPrice -> productPrice != null && productPrice.getId() != null).map(ProductPrice::getId)
+                );
+                Set<Long> ownedProductIds = findProductIdsOwnedBy(existingProductPrices.values().stream(), currentUserId);
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    ProductPrice productPrice = chunk.get(i);
+                    Long id = productPrice != null ? productPrice.getId() : null;
+                    BulkItemResultDTO denied = checkOwned(offset + i, id, existingProductPrices, ownedProductIds);
+                    if (denied != null) {
+                        results.add(denied);
+                        continue;
+                    }
+                    ProductPrice existingProductPrice = existingProductPrices.get(id);
+                    ProductPrice before = copyOf(existingProductPrice);
+                    onPriceChanged(before, merge(existingProductPrice, productPrice));
+                    results.add(new BulkItemResultDTO(offset + i, id, Outcome.UPDATED));
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} ProductPrices", ids.size());
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        return bulkOperations.run(
+            ids,
+            Function.identity(),
+            (chunk, offset) -> {
+                Map<Long, ProductPrice> existingProductPrices = findAllById(chunk.stream().filter(Objects::nonNull));
+                Set<Long> ownedProductIds = findProductIdsOwnedBy(existingProductPrices.values().stream(), currentUserId);
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                Map<Long, ProductPrice> deletedProductPrices = new LinkedHashMap<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    Long id = chunk.get(i);
+                    BulkItemResultDTO denied = checkOwned(offset + i, id, existingProductPrices, ownedProductIds);
+                    if (denied != null) {
+                        results.add(denied);
+                        continue;
+                    }
+                    deletedProductPrices.computeIfAbsent(id, deletedId -> copyOf(existingProductPrices.get(deletedId)));
+                    results.add(new BulkItemResultDTO(offset + i, id, Outcome.DELETED));
+                }
+                if (!deletedProductPrices.isEmpty()) {
+                    // deleted first, so that the rollups recomputing their extremes no longer read the deleted prices
+                    productPriceRepository.deleteAllByIdInBatch(deletedProductPrices.keySet());
+                    deletedProductPrices.values().forEach(productPrice -> onPriceChanged(productPrice, null));
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public double getAveragePriceForProduct(long productId, Instant startDate, Instant endDate, AverageMode mode) {
+        log.debug("Request to get the {} average price of Product {} between {} and {}", mode, productId, startDate, endDate);
+        if (priceIntervalIndex.isEnabled()) {
+            return indexedAverage(priceIntervalIndex.get(productId), startDate, endDate, mode);
+        }
+        if (mode == AverageMode.TIME_WEIGHTED && priceRollupService.isEnabled()) {
+            return priceRollupService.getStatistics(RollupScope.PRODUCT, productId, startDate, endDate).getAverage();
+        }
+        if (mode == AverageMode.TIME_WEIGHTED) {
+            try (Stream<PriceIntervalDTO> intervals = productPriceRepository.streamIntervalsForProduct(productId, startDate, endDate)) {
+                return timeWeightedAverage(intervals, startDate, endDate);
+            }
+        }
+        return productPriceRepository.getStatisticsForProduct(productId, startDate, endDate).getAverage();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public double getAveragePriceForCategory(long categoryId, Instant startDate, Instant endDate, AverageMode mode) {
+        log.debug("Request to get the {} average price of Category {} between {} and {}", mode, categoryId, startDate, endDate);
+        if (mode == AverageMode.TIME_WEIGHTED && priceRollupService.isEnabled()) {
+            return priceRollupService.getStatistics(RollupScope.CATEGORY, categoryId, startDate, endDate).getAverage();
+        }
+        if (mode == AverageMode.TIME_WEIGHTED) {
+            try (Stream<PriceIntervalDTO> intervals = productPriceRepository.streamIntervalsForCategory(categoryId, startDate, endDate)) {
+                return timeWeightedAverage(intervals, startDate, endDate);
+            }
+        }
+        return productPriceRepository.getStatisticsForCategory(categoryId, startDate, endDate).getAverage();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public double getAveragePriceForCategoryTree(long categoryId, Instant startDate, Instant endDate, AverageMode mode) {
+        log.debug("Request to get the {} average price of Category tree {} between {} and {}", mode, categoryId, startDate, endDate);
+        if (mode == AverageMode.TIME_WEIGHTED) {
+            try (
+                Stream<PriceIntervalDTO> intervals = productPriceRepository.streamIntervalsForCategoryTree(categoryId, startDate, endDate)
+            ) {
+                return timeWeightedAverage(intervals, startDate, endDate);
+            }
+        }
+        return productPriceRepository.getStatisticsForCategoryTree(categoryId, startDate, endDate).getAverage();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceStatisticsDTO getStatisticsForCategoryTree(long categoryId, Instant startDate, Instant endDate) {
+        log.debug("Request to get the price statistics of the Category tree {} between {} and {}", categoryId, startDate, endDate);
+        return productPriceRepository.getStatisticsForCategoryTree(categoryId, startDate, endDate);
     }
 
     @Override
-    public double getAveragePriceForProduct(long productId, Instant startDate, Instant endDate) {
-        List<ProductPrice> prices = productPriceRepository.findByProductId(productId);
-        OptionalDouble average = calculateAverage(prices, startDate, endDate);
-        return average.isPresent() ? average.getAsDouble() : 0;
+    @Transactional(readOnly = true)
+    public PriceRangeStatisticsDTO getStatisticsForProduct(long productId, Instant startDate, Instant endDate) {
+        return priceRollupService.getStatistics(RollupScope.PRODUCT, productId, startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceRangeStatisticsDTO getStatisticsForCategory(long categoryId, Instant startDate, Instant endDate) {
+        return priceRollupService.getStatistics(RollupScope.CATEGORY, categoryId, startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductPrice> findOverlapping(long productId, Instant startDate, Instant endDate) {
+        log.debug("Request to get the ProductPrices of Product {} between {} and {}", productId, startDate, endDate);
+        PriceIntervalIndex.Intervals intervals = priceIntervalIndex.get(productId);
+        List<ProductPrice> productPrices = new ArrayList<>();
+        intervals.forEachOverlapping(
+            startDate.toEpochMilli(),
+            endDate.toEpochMilli(),
+            position -> productPrices.add(toProductPrice(intervals, position))
+        );
+        return productPrices;
     }
 
     @Override
-    public double getAveragePriceForCategory(long categoryId, Instant startDate, Instant endDate) {
-        List<ProductPrice> prices = productPriceRepository.findProductPricesForCategory(categoryId);
-        OptionalDouble average = calculateAverage(prices, startDate, endDate);
-        return average.isPresent() ? average.getAsDouble() : 0;
+    @Transactional(readOnly = true)
+    public Optional<ProductPrice> findEffective(long productId, Instant at) {
+        log.debug("Request to get the ProductPrice of Product {} in effect at {}", productId, at);
+        PriceIntervalIndex.Intervals intervals = priceIntervalIndex.get(productId);
+        int position = intervals.effectiveAt(at.toEpochMilli());
+        return position < 0 ? Optional.empty() : Optional.of(toProductPrice(intervals, position));
+    }
+
+    private void onPriceChanged(ProductPrice before, ProductPrice after) {
+        priceRollupService.onPriceChanged(before, after);
+        if (before != null && before.getProduct() != null) {
+            priceIntervalIndex.invalidateAfterCommit(before.getProduct().getId());
+        }
+        if (after != null && after.getProduct() != null) {
+            priceIntervalIndex.invalidateAfterCommit(after.getProduct().getId());
+        }
+    }
+
+    /**
+     * Loads the prices of a chunk in one query.
+     */
+    private Map<Long, ProductPrice> findAllById(Stream<Long> ids) {
+        return productPriceRepository
+            .findAllById(ids.distinct().collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(ProductPrice::getId, Function.identity()));
     }
 
-    private OptionalDouble calculateAverage(List<ProductPrice> prices, Instant startDate, Instant endDate) {
-        return prices.stream().filter(p -> isIncludedInRange(p, startDate, endDate)).mapToDouble(ProductPrice::getPrice).average();
+    /**
+     * Checks the ownership of the products of a chunk of prices in one query.
+     */
+    private Set<Long> findProductIdsOwnedBy(Stream<ProductPrice> productPrices, Long currentUserId) {
+        Set<Long> productIds = productPrices.map(ProductPriceServiceImpl::productId).filter(Objects::nonNull).collect(Collectors.toSet());
+        if (productIds.isEmpty()) {
+            return productIds;
+        }
+        return new HashSet<>(productRepository.findIdsOwnedBy(productIds, currentUserId));
     }
 
-    private boolean isIncludedInRange(ProductPrice price, Instant startDate, Instant endDate) {
-        return (
-            (price.getStartDate().isAfter(startDate) && price.getEndDate().isBefore(endDate)) ||
-            startDate.isAfter(price.getStartDate()) &&
-            startDate.isBefore(price.getEndDate()) ||
-            endDate.isAfter(price.getStartDate()) &&
-            endDate.isBefore(price.getEndDate())
+    /**
+     * @return the result of an item that can not be written by the current user, or null if it can.
+     */
+    private static BulkItemResultDTO checkOwned(
+        int index,
+        Long id,
+        Map<Long, ProductPrice> existingProductPrices,
+        Set<Long> ownedProductIds
+    ) {
+        if (id == null) {
+            return new BulkItemResultDTO(index, null, Outcome.INVALID, "An id is required");
+        }
+        ProductPrice existingProductPrice = existingProductPrices.get(id);
+        if (existingProductPrice == null) {
+            return new BulkItemResultDTO(index, id, Outcome.NOT_FOUND);
+        }
+        if (!ownedProductIds.contains(productId(existingProductPrice))) {
+            return new BulkItemResultDTO(index, id, Outcome.FORBIDDEN, "The product must be owned by the current user");
+        }
+        return null;
+    }
+
+    private static Long productId(ProductPrice productPrice) {
+        return productPrice.getProduct() != null ? productPrice.getProduct().getId() : null;
+    }
+
+    /**
+     * Copies the fields set in a patch onto an existing price.
+     */
+    private static ProductPrice merge(ProductPrice existingProductPrice, ProductPrice productPrice) {
+        if (productPrice.getStartDate() != null) {
+            existingProductPrice.setStartDate(productPrice.getStartDate());
+        }
+        if (productPrice.getEndDate() != null) {
+            existingProductPrice.setEndDate(productPrice.getEndDate());
+        }
+        if (productPrice.getPrice() != null) {
+            existingProductPrice.setPrice(productPrice.getPrice());
+        }
+        return existingProductPrice;
+    }
+
+    private static ProductPrice toProductPrice(PriceIntervalIndex.Intervals intervals, int position) {
+        return new ProductPrice()
+            .id(intervals.getId(position))
+            .price(intervals.getPrice(position))
+            .startDate(Instant.ofEpochMilli(intervals.getStartMillis(position)))
+            .endDate(Instant.ofEpochMilli(intervals.getEndMillis(position)));
+    }
+
+    private static double indexedAverage(PriceIntervalIndex.Intervals intervals, Instant startDate, Instant endDate, AverageMode mode) {
+        long windowStart = startDate.toEpochMilli();
+        long windowEnd = endDate.toEpochMilli();
+        double[] sums = new double[2];
+        intervals.forEachOverlapping(
+            windowStart,
+            windowEnd,
+            position -> {
+                long weight = mode == AverageMode.TIME_WEIGHTED
+                    ? Math.min(intervals.getEndMillis(position), windowEnd) - Math.max(intervals.getStartMillis(position), windowStart)
+                    : 1;
+                sums[0] += (double) intervals.getPrice(position) * weight;
+                sums[1] += weight;
+            }
         );
+        return sums[1] > 0 ? sums[0] / sums[1] : 0;
+    }
+
+    /**
+     * Averages the prices weighted by how long each one overlaps {@code [startDate, endDate]}, in a single pass.
+     */
+    private double timeWeightedAverage(Stream<PriceIntervalDTO> intervals, Instant startDate, Instant endDate) {
+        long windowStart = startDate.toEpochMilli();
+        long windowEnd = endDate.toEpochMilli();
+        double weightedSum = 0;
+        long totalMillis = 0;
+        Iterator<PriceIntervalDTO> iterator = intervals.iterator();
+        while (iterator.hasNext()) {
+            PriceIntervalDTO interval = iterator.next();
+            long overlap = Math.min(interval.getEndMillis(), windowEnd) - Math.max(interval.getStartMillis(), windowStart);
+            if (overlap > 0) {
+                weightedSum += (double) interval.getPrice() * overlap;
+                totalMillis += overlap;
+            }
+        }
+        return totalMillis > 0 ? weightedSum / totalMillis : 0;
+    }
+
+    private static ProductPrice copyOf(ProductPrice productPrice) {
+        return new ProductPrice()
+            .id(productPrice.getId())
+            .startDate(productPrice.getStartDate())
+            .endDate(productPrice.getEndDate())
+            .price(productPrice.getPrice())
+            .product(productPrice.getProduct());
     }
 }
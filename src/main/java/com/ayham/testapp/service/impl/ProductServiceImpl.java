@@ -1,25 +1,47 @@
 package com.ayham.testapp.service.impl;
 
-import static org.springframework.http.HttpHeaders.AUTHORIZATION;
-
+import com.ayham.testapp.config.ApplicationProperties;
 import com.ayham.testapp.domain.Product;
-import com.ayham.testapp.domain.User;
+import com.ayham.testapp.domain.enumeration.Status;
 import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.security.SecurityUtils;
 import com.ayham.testapp.service.Exception.InvalidTokenException;
 import com.ayham.testapp.service.Exception.LikeException;
 import com.ayham.testapp.service.Exception.ProductDoesNotExistException;
-import com.ayham.testapp.service.Exception.UserDoesNotExistException;
+import com.ayham.testapp.service.LikeBuffer;
+import com.ayham.testapp.service.PriceRollupService;
+import com.ayham.testapp.service.ProductAutocompleteIndex;
+import com.ayham.testapp.service.ProductSearchIndex;
 import com.ayham.testapp.service.ProductService;
-import com.ayham.testapp.service.UserService;
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import com.ayham.testapp.service.dto.BulkItemResultDTO.Outcome;
+import com.ayham.testapp.service.dto.ProductSearchHitDTO;
+import com.ayham.testapp.service.dto.ProductSummaryDTO;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import javax.servlet.http.HttpServletRequest;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service Implementation for managing {@link Product}.
@@ -32,23 +54,55 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
 
-    @Autowired
-    HttpServletRequest request;
+    private final PriceRollupService priceRollupService;
+
+    private final LikeBuffer likeBuffer;
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductAutocompleteIndex productAutocompleteIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean reconcileEnabled;
 
-    @Autowired
-    UserService userService;
+    private final int reconcileChunkSize;
 
-    public ProductServiceImpl(ProductRepository productRepository) {
+    private final BulkOperations bulkOperations;
+
+    private final Validator validator;
+
+    public ProductServiceImpl(
+        ProductRepository productRepository,
+        PriceRollupService priceRollupService,
+        LikeBuffer likeBuffer,
+        ProductSearchIndex productSearchIndex,
+        ProductAutocompleteIndex productAutocompleteIndex,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        Validator validator
+    ) {
         this.productRepository = productRepository;
+        this.priceRollupService = priceRollupService;
+        this.likeBuffer = likeBuffer;
+        this.productSearchIndex = productSearchIndex;
+        this.productAutocompleteIndex = productAutocompleteIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileEnabled = applicationProperties.getLikeCount().isReconcileEnabled();
+        this.reconcileChunkSize = applicationProperties.getLikeCount().getReconcileChunkSize();
+        this.bulkOperations = new BulkOperations(transactionManager, applicationProperties.getBulk().getChunkSize());
+        this.validator = validator;
     }
 
     @Override
     public Product save(Product product) {
         log.debug("Request to save Product : {}", product);
-        String token = request.getHeader(AUTHORIZATION);
-        String currentUserId = userService.getIdFromToken(token);
-        if (currentUserId != null && currentUserId.equals(product.getOwner().getId().toString())) {
-            return productRepository.save(product);
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        if (product.getOwner() != null && currentUserId.equals(product.getOwner().getId())) {
+            Product result = productRepository.save(product);
+            productSearchIndex.indexAfterCommit(result);
+            productAutocompleteIndex.upsertAfterCommit(result);
+            return result;
         } else {
             throw new InvalidTokenException();
         }
@@ -57,7 +111,13 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public Product update(Product product) {
         log.debug("Request to update Product : {}", product);
-        return productRepository.save(product);
+        Long previousCategoryId = product.getId() != null ? productRepository.findCategoryId(product.getId()).orElse(null) : null;
+        Product result = productRepository.save(product);
+        Long categoryId = result.getCategory() != null ? result.getCategory().getId() : null;
+        priceRollupService.onProductCategoryChanged(result.getId(), previousCategoryId, categoryId);
+        productSearchIndex.indexAfterCommit(result);
+        productAutocompleteIndex.upsertAfterCommit(result);
+        return result;
     }
 
     @Override
@@ -66,20 +126,13 @@ public class ProductServiceImpl implements ProductService {
 
         return productRepository
             .findById(product.getId())
-            .map(existingProduct -> {
-                if (product.getTitle() != null) {
-                    existingProduct.setTitle(product.getTitle());
-                }
-                if (product.getDescription() != null) {
-                    existingProduct.setDescription(product.getDescription());
-                }
-                if (product.getStatus() != null) {
-                    existingProduct.setStatus(product.getStatus());
-                }
-
-                return existingProduct;
-            })
-            .map(productRepository::save);
+            .map(existingProduct -> merge(existingProduct, product))
+            .map(productRepository::save)
+            .map(result -> {
+                productSearchIndex.indexAfterCommit(result);
+                productAutocompleteIndex.upsertAfterCommit(result);
+                return result;
+            });
     }
 
     @Override
@@ -89,10 +142,46 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
     public Page<Product> findAllWithEagerRelationships(Pageable pageable) {
         return productRepository.findAllWithEagerRelationships(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Product> findSliceOrderById(Long afterId, int size) {
+        log.debug("Request to get {} Products after id {}", size, afterId);
+        if (afterId == null) {
+            return productRepository.findSliceByOrderByIdAsc(PageRequest.of(0, size));
+        }
+        return productRepository.findSliceAfterId(afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Product> findSliceOrderByTitle(String afterTitle, Long afterId, int size) {
+        log.debug("Request to get {} Products after title {} and id {}", size, afterTitle, afterId);
+        if (afterTitle == null || afterId == null) {
+            return productRepository.findSliceByOrderByTitleAscIdAsc(PageRequest.of(0, size));
+        }
+        return productRepository.findSliceAfterTitle(afterTitle, afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ProductSummaryDTO> findSliceOwnedBy(Long userId, Long afterId, int size) {
+        log.debug("Request to get {} Products owned by User {} after id {}", size, userId, afterId);
+        return productRepository.findSummariesOwnedBy(userId, afterId != null ? afterId : 0L, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ProductSummaryDTO> findSliceLikedBy(Long userId, Long afterId, int size) {
+        log.debug("Request to get {} Products liked by User {} after id {}", size, userId, afterId);
+        return productRepository.findSummariesLikedBy(userId, afterId != null ? afterId : 0L, PageRequest.of(0, size));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Product> findOne(Long id) {
@@ -104,40 +193,314 @@ public class ProductServiceImpl implements ProductService {
     public void delete(Long id) {
         log.debug("Request to delete Product : {}", id);
         productRepository.deleteById(id);
+        productSearchIndex.deleteAfterCommit(id);
+        productAutocompleteIndex.removeAfterCommit(id);
     }
 
     @Override
-    public void like(Long id) {
-        Optional<Product> oProduct = findOne(id);
-        if (oProduct.isEmpty()) {
-            throw new ProductDoesNotExistException();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> saveAll(List<Product> products) {
+        log.debug("Request to save {} Products", products.size());
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        boolean[] sentWithId = new boolean[products.size()];
+        for (int i = 0; i < sentWithId.length; i++) {
+            sentWithId[i] = products.get(i) != null && products.get(i).getId() != null;
         }
-        Product product = oProduct.get();
-        String currentUserId = userService.getIdFromToken(request.getHeader(AUTHORIZATION));
-        if (currentUserId.equals(product.getOwner().getId().toString())) {
+        return bulkOperations.run(
+            products,
+            product -> null,
+            (chunk, offset) -> {
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Product product = chunk.get(i);
+                    int index = offset + i;
+                    if (product == null) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.INVALID, "A product is required"));
+                    } else if (sentWithId[index]) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.INVALID, "A new product cannot already have an ID"));
+                    } else if (product.getOwner() == null || !currentUserId.equals(product.getOwner().getId())) {
+                        results.add(new BulkItemResultDTO(index, null, Outcome.FORBIDDEN, "The owner must be the current user"));
+                    } else {
+                        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+                        if (!violations.isEmpty()) {
+                            results.add(new BulkItemResultDTO(index, null, Outcome.INVALID, describe(violations)));
+                            continue;
+                        }
+                        // clears the id assigned by a chunk that failed to commit, and is written again item by item
+                        Product result = productRepository.save(product.id(null));
+                        productSearchIndex.indexAfterCommit(result);
+                        productAutocompleteIndex.upsertAfterCommit(result);
+                        results.add(new BulkItemResultDTO(index, result.getId(), Outcome.CREATED));
+                    }
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> partialUpdateAll(List<Product> products) {
+        log.debug("Request to partially update {} Products", products.size());
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        return bulkOperations.run(
+            products,
+            product -> product != null ? product.getId() : null,
+            (chunk, offset) -> {
+                Map<Long, Product> existingProducts = findAllById(
+                    chunk.stream().filter(product -> product != null && product.getId() != null).map(Product::getId)
+                );
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Product product = chunk.get(i);
+                    Long id = product != null ? product.getId() : null;
+                    BulkItemResultDTO denied = checkOwned(offset + i, id, existingProducts, currentUserId);
+                    if (denied != null) {
+                        results.add(denied);
+                        continue;
+                    }
+                    Product result = merge(existingProducts.get(id), product);
+                    productSearchIndex.indexAfterCommit(result);
+                    productAutocompleteIndex.upsertAfterCommit(result);
+                    results.add(new BulkItemResultDTO(offset + i, id, Outcome.UPDATED));
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> updateStatusAll(List<Long> ids, Status status) {
+        log.debug("Request to set the status of {} Products to {}", ids.size(), status);
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        return bulkOperations.run(
+            ids,
+            Function.identity(),
+            (chunk, offset) -> {
+                Map<Long, Product> existingProducts = findAllById(chunk.stream().filter(Objects::nonNull));
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Long id = chunk.get(i);
+                    BulkItemResultDTO denied = checkOwned(offset + i, id, existingProducts, currentUserId);
+                    if (denied != null) {
+                        results.add(denied);
+                        continue;
+                    }
+                    Product result = existingProducts.get(id).status(status);
+                    productSearchIndex.indexAfterCommit(result);
+                    productAutocompleteIndex.upsertAfterCommit(result);
+                    results.add(new BulkItemResultDTO(offset + i, id, Outcome.UPDATED));
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} Products", ids.size());
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        return bulkOperations.run(
+            ids,
+            Function.identity(),
+            (chunk, offset) -> {
+                Map<Long, Product> existingProducts = findAllById(chunk.stream().filter(Objects::nonNull));
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                Set<Long> deletedIds = new LinkedHashSet<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    Long id = chunk.get(i);
+                    BulkItemResultDTO denied = checkOwned(offset + i, id, existingProducts, currentUserId);
+                    if (denied != null) {
+                        results.add(denied);
+                        continue;
+                    }
+                    if (deletedIds.add(id)) {
+                        productSearchIndex.deleteAfterCommit(id);
+                        productAutocompleteIndex.removeAfterCommit(id);
+                    }
+                    results.add(new BulkItemResultDTO(offset + i, id, Outcome.DELETED));
+                }
+                if (!deletedIds.isEmpty()) {
+                    productRepository.deleteAllByIdInBatch(deletedIds);
+                }
+                return results;
+            }
+        );
+    }
+
+    @Override
+    public Slice<ProductSearchHitDTO> search(String text, Status status, Long categoryId, Float afterScore, Long afterId, int size) {
+        log.debug("Request to search {} Products for '{}'", size, text);
+        return productSearchIndex.search(text, status, categoryId, afterScore, afterId, size);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductSummaryDTO> autocomplete(String prefix, int size) {
+        log.debug("Request to complete {} Products for '{}'", size, prefix);
+        return productAutocompleteIndex.complete(prefix, size);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long reindex() {
+        log.debug("Request to reindex all Products");
+        return productSearchIndex.reindex();
+    }
+
+    /**
+     * The like and its count are written in a transaction of their own, so that a duplicate like inserted concurrently
+     * rolls back only that transaction, and is then a no-op as the like exists. It is committed before
+     * {@link LikeBuffer#writeDirectly} lets the flush drain its shard.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void like(Long id) {
+        log.debug("Request to like Product : {}", id);
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        if (productRepository.isOwnedBy(id, currentUserId).orElseThrow(ProductDoesNotExistException::new)) {
             throw new LikeException();
         }
-        Optional<User> user = userService.findOne(Long.valueOf(currentUserId));
-        if (user.isEmpty()) {
-            throw new UserDoesNotExistException();
+        if (likeBuffer.offer(id, currentUserId, true)) {
+            return;
         }
-        product.getUserLikes().add(user.get());
-        update(product);
+        likeBuffer.writeDirectly(
+            id,
+            currentUserId,
+            true,
+            () -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (productRepository.insertLike(id, currentUserId) > 0) {
+                            productRepository.addToLikeCount(id, 1);
+                        }
+                    });
+                } catch (DataIntegrityViolationException e) {
+                    if (!productRepository.existsById(id)) {
+                        throw new ProductDoesNotExistException();
+                    }
+                    log.debug("Product {} was liked concurrently by user {}", id, currentUserId);
+                }
+            }
+        );
     }
 
+    /**
+     * As for {@link #like(Long)}, the unlike is committed before {@link LikeBuffer#writeDirectly} lets the flush drain its shard.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void unLike(Long id) {
-        Optional<Product> oProduct = findOne(id);
-        if (oProduct.isEmpty()) {
-            throw new ProductDoesNotExistException();
-        }
-        Product product = oProduct.get();
-        String currentUserId = userService.getIdFromToken(request.getHeader(AUTHORIZATION));
-        Optional<User> user = userService.findOne(Long.valueOf(currentUserId));
-        if (user.isEmpty()) {
-            throw new UserDoesNotExistException();
-        }
-        product.getUserLikes().add(user.get());
-        update(product);
+        log.debug("Request to unlike Product : {}", id);
+        Long currentUserId = SecurityUtils.getCurrentUserId().orElseThrow(InvalidTokenException::new);
+        if (likeBuffer.isEnabled()) {
+            if (!productRepository.existsById(id)) {
+                throw new ProductDoesNotExistException();
+            }
+            if (likeBuffer.offer(id, currentUserId, false)) {
+                return;
+            }
+        }
+        likeBuffer.writeDirectly(
+            id,
+            currentUserId,
+            false,
+            () -> {
+                Boolean removed = transactionTemplate.execute(status -> {
+                    if (productRepository.deleteLike(id, currentUserId) > 0) {
+                        productRepository.addToLikeCount(id, -1);
+                        return true;
+                    }
+                    return false;
+                });
+                if (!Boolean.TRUE.equals(removed) && !productRepository.existsById(id)) {
+                    throw new ProductDoesNotExistException();
+                }
+            }
+        );
+    }
+
+    /**
+     * Reconciles the like counts on schedule, on the node where {@code application.like-count.reconcile-enabled} is set only,
+     * so that the nodes do not all scan product_like at once.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(cron = "${application.like-count.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcileLikeCounts() {
+        if (reconcileEnabled) {
+            reconcileLikeCounts();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long reconcileLikeCounts() {
+        log.debug("Request to reconcile the like counts of all Products");
+        long maxId = productRepository.findMaxId();
+        long repaired = 0;
+        for (long fromId = 0; fromId < maxId; fromId += reconcileChunkSize) {
+            long chunkFromId = fromId;
+            Integer chunkRepaired = transactionTemplate.execute(status ->
+                productRepository.reconcileLikeCounts(chunkFromId, chunkFromId + reconcileChunkSize)
+            );
+            repaired += chunkRepaired != null ? chunkRepaired : 0;
+        }
+        if (repaired > 0) {
+            log.warn("Repaired the like counts of {} Products", repaired);
+        }
+        return repaired;
+    }
+
+    /**
+     * Loads the products of a chunk in one query, which also gives their owners for the ownership checks.
+     */
+    private Map<Long, Product> findAllById(Stream<Long> ids) {
+        return productRepository
+            .findAllById(ids.distinct().collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    /**
+     * @return the result of an item that can not be written by the current user, or null if it can.
+     */
+    private static BulkItemResultDTO checkOwned(int index, Long id, Map<Long, Product> existingProducts, Long currentUserId) {
+        if (id == null) {
+            return new BulkItemResultDTO(index, null, Outcome.INVALID, "An id is required");
+        }
+        Product existingProduct = existingProducts.get(id);
+        if (existingProduct == null) {
+            return new BulkItemResultDTO(index, id, Outcome.NOT_FOUND);
+        }
+        if (existingProduct.getOwner() == null || !currentUserId.equals(existingProduct.getOwner().getId())) {
+            return new BulkItemResultDTO(index, id, Outcome.FORBIDDEN, "The owner must be the current user");
+        }
+        return null;
+    }
+
+    private static String describe(Set<? extends ConstraintViolation<?>> violations) {
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Copies the fields set in a patch onto an existing product.
+     */
+    private static Product merge(Product existingProduct, Product product) {
+        if (product.getTitle() != null) {
+            existingProduct.setTitle(product.getTitle());
+        }
+        if (product.getDescription() != null) {
+            existingProduct.setDescription(product.getDescription());
+        }
+        if (product.getStatus() != null) {
+            existingProduct.setStatus(product.getStatus());
+        }
+        return existingProduct;
     }
 }
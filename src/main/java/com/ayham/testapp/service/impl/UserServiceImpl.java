@@ -1,9 +1,17 @@
 package com.ayham.testapp.service.impl;
 
+import com.ayham.testapp.config.ApplicationProperties;
 import com.ayham.testapp.domain.User;
 import com.ayham.testapp.repository.UserRepository;
+import com.ayham.testapp.security.PasswordHashingService;
+import com.ayham.testapp.security.TokenCache;
+import com.ayham.testapp.security.TokenStore;
+import com.ayham.testapp.security.UserPrincipal;
+import com.ayham.testapp.security.jwt.TokenProvider;
+import com.ayham.testapp.security.jwt.TokenRevocationList;
 import com.ayham.testapp.service.Exception.*;
 import com.ayham.testapp.service.UserService;
+import io.jsonwebtoken.Claims;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.List;
@@ -12,8 +20,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -29,14 +37,39 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
-    private static final SecureRandom secureRandom = new SecureRandom();
-    private static final Base64.Encoder base64Encoder = Base64.getUrlEncoder();
+    private final TokenCache tokenCache;
+
+    private final TokenStore tokenStore;
+
+    private final TokenProvider tokenProvider;
+
+    private final TokenRevocationList tokenRevocationList;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final boolean signedTokens;
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+    private static final Base64.Encoder base64Encoder = Base64.getUrlEncoder().withoutPadding();
+
+    public UserServiceImpl(
+        UserRepository userRepository,
+        PasswordHashingService passwordHashingService,
+        TokenCache tokenCache,
+        TokenStore tokenStore,
+        TokenProvider tokenProvider,
+        TokenRevocationList tokenRevocationList,
+        ApplicationProperties applicationProperties
+    ) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenCache = tokenCache;
+        this.tokenStore = tokenStore;
+        this.tokenProvider = tokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
+        this.signedTokens = applicationProperties.getSecurity().getTokenMode() == ApplicationProperties.Security.TokenMode.SIGNED;
     }
 
     @Override
@@ -46,6 +79,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User register(User user) {
         log.debug("Request to register User : {}", user);
         if (!StringUtils.hasLength(user.getUsername()) || !StringUtils.hasLength(user.getPassword())) {
@@ -55,9 +89,10 @@ public class UserServiceImpl implements UserService {
         if (!CollectionUtils.isEmpty(existingUsers)) {
             throw new UsernameAlreadyUsedException();
         }
-        String encodedPassword = passwordEncoder.encode(user.getPassword());
+        // hashed outside of any transaction, so no connection is held meanwhile
+        String encodedPassword = passwordHashingService.encode(user.getPassword());
         user.setPassword(encodedPassword);
-        return save(user);
+        return userRepository.save(user);
     }
 
     @Override
@@ -115,6 +150,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String login(User user) {
         log.debug("Request to login User : {}", user.getUsername());
         List<User> existingUsers = userRepository.findByUsername(user.getUsername());
@@ -122,10 +158,14 @@ public class UserServiceImpl implements UserService {
             throw new UserDoesNotExistException();
         }
         User userToLogin = existingUsers.get(0);
-        if (passwordEncoder.matches(user.getPassword(), userToLogin.getPassword())) {
-            String token = base64Encoder.encodeToString(userToLogin.getId().toString().getBytes());
-            userToLogin.setToken(token);
-            partialUpdate(userToLogin);
+        if (passwordHashingService.matches(user.getPassword(), userToLogin.getPassword())) {
+            if (signedTokens) {
+                return tokenProvider.createToken(userToLogin);
+            }
+            byte[] randomBytes = new byte[TOKEN_BYTES];
+            secureRandom.nextBytes(randomBytes);
+            String token = base64Encoder.encodeToString(randomBytes);
+            tokenStore.store(token, new UserPrincipal(userToLogin.getId(), userToLogin.getUsername()));
             return token;
         } else {
             throw new InvalidPasswordException();
@@ -133,25 +173,48 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public void logout(User user) {
-        List<User> existingUsers = userRepository.findByToken(user.getToken());
-        if (CollectionUtils.isEmpty(existingUsers)) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void logout(String token) {
+        if (token == null) {
+            throw new InvalidTokenException();
+        }
+        if (signedTokens) {
+            Claims claims = tokenProvider.parseToken(token).orElseThrow(InvalidTokenException::new);
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().toInstant());
+            return;
+        }
+        // The session is removed, and its removal committed by the store, before the cache entry is evicted: a request
+        // loading the token in between finds it gone instead of caching it again
+        boolean removed = tokenStore.remove(token);
+        tokenCache.evict(token);
+        if (!removed) {
             throw new InvalidTokenException();
         }
-        User userToLogout = existingUsers.get(0);
-        userToLogout.setToken(null);
-        update(userToLogout);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isTokenValid(String token) {
-        List<User> existingUsers = userRepository.findByToken(token);
-        return !CollectionUtils.isEmpty(existingUsers);
+        return authenticate(token).isPresent();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserPrincipal> authenticate(String token) {
+        if (signedTokens) {
+            return tokenProvider
+                .parseToken(token)
+                .filter(claims -> !tokenRevocationList.isRevoked(claims.getId(), claims.getExpiration().toInstant()))
+                .map(claims ->
+                    new UserPrincipal(Long.valueOf(claims.getSubject()), claims.get(TokenProvider.USERNAME_KEY, String.class))
+                );
+        }
+        return tokenCache.getPrincipal(token, tokenStore::find);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public String getIdFromToken(String token) {
-        byte[] decodedBytes = Base64.getDecoder().decode(token);
-        return new String(decodedBytes);
+        return authenticate(token).map(principal -> principal.getId().toString()).orElse(null);
     }
 }
@@ -3,6 +3,7 @@ package com.ayham.testapp.web.rest;
 import com.ayham.testapp.domain.Category;
 import com.ayham.testapp.repository.CategoryRepository;
 import com.ayham.testapp.service.CategoryService;
+import com.ayham.testapp.service.dto.CategoryDTO;
 import com.ayham.testapp.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -14,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -150,6 +152,47 @@ public class CategoryResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /categories?fields=} : get the selected fields of all the categories.
+     *
+     * @param fields the comma separated fields to select among {@code id}, {@code title} and {@code parentId}.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of categories in body.
+     */
+    @GetMapping(value = "/categories", params = "fields")
+    public ResponseEntity<List<CategoryDTO>> getAllCategoryFields(
+        @RequestParam String fields,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the fields {} of a page of Categories", fields);
+        Page<CategoryDTO> page = categoryService.findAllFields(fields, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /categories/_slice} : get a slice of the categories, following the position of a cursor.
+     *
+     * @param cursor the cursor from the {@code next} link of the previous slice, or none for the first slice.
+     * @param size the maximum number of categories.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of categories in body, with a {@code Link} to the next slice if there is one.
+     */
+    @GetMapping("/categories/_slice")
+    public ResponseEntity<List<Category>> getCategorySlice(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get a slice of Categories");
+        KeysetPagination.validate("id", size, ENTITY_NAME, "id");
+        KeysetPagination.Cursor after = KeysetPagination.decode(cursor, "id", ENTITY_NAME);
+        Slice<Category> slice = categoryService.findSliceOrderById(after != null ? after.getId() : null, size);
+        HttpHeaders headers = KeysetPagination.generateSliceHttpHeaders(
+            slice,
+            category -> KeysetPagination.encode("id", category.getId(), null)
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * {@code GET  /categories/:id} : get the "id" category.
      *
@@ -163,6 +206,19 @@ public class CategoryResource {
         return ResponseUtil.wrapOrNotFound(category);
     }
 
+    /**
+     * {@code GET  /categories/:id?fields=} : get the selected fields of the "id" category.
+     *
+     * @param id the id of the category to retrieve.
+     * @param fields the comma separated fields to select among {@code id}, {@code title} and {@code parentId}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the category, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/categories/{id}", params = "fields")
+    public ResponseEntity<CategoryDTO> getCategoryFields(@PathVariable Long id, @RequestParam String fields) {
+        log.debug("REST request to get the fields {} of Category : {}", fields, id);
+        return ResponseUtil.wrapOrNotFound(categoryService.findOneFields(id, fields));
+    }
+
     /**
      * {@code DELETE  /categories/:id} : delete the "id" category.
      *
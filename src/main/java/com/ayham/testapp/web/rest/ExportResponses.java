@@ -0,0 +1,39 @@
+package com.ayham.testapp.web.rest;
+
+import com.ayham.testapp.service.ExportService;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Builds the responses of the export endpoints, which stream their body as an attachment, gzipped on demand.
+ */
+final class ExportResponses {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private ExportResponses() {}
+
+    static ResponseEntity<StreamingResponseBody> attachment(
+        String name,
+        ExportService.Format format,
+        boolean gzip,
+        StreamingResponseBody body
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename(name + "." + format.getExtension()).build());
+        if (!gzip) {
+            return ResponseEntity.ok().headers(headers).contentType(MediaType.parseMediaType(format.getContentType())).body(body);
+        }
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        StreamingResponseBody gzipped = outputStream -> {
+            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+            body.writeTo(gzipOutputStream);
+            gzipOutputStream.finish();
+        };
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.parseMediaType(format.getContentType())).body(gzipped);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ayham.testapp.web.rest;
+
+import com.ayham.testapp.web.rest.errors.BadRequestAlertException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Keyset pagination of the {@code _slice} endpoints.
+ * <p>
+ * A slice starts right after the sort key and id of the last row of the previous one, handed back to the client as an
+ * opaque cursor in the {@code next} link. Seeking on an index costs the same on every slice, and no count is run.
+ */
+final class KeysetPagination {
+
+    static final int MAX_SIZE = 1000;
+
+    private static final char SEPARATOR = ':';
+
+    private KeysetPagination() {}
+
+    /**
+     * The position a slice starts after.
+     */
+    static final class Cursor {
+
+        private final Long id;
+
+        private final String key;
+
+        private Cursor(Long id, String key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        Long getId() {
+            return id;
+        }
+
+        String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Checks the sort and size of a slice request.
+     *
+     * @throws BadRequestAlertException if the sort is not one of {@code sorts}, or the size is not between 1 and {@link #MAX_SIZE}.
+     */
+    static void validate(String sort, int size, String entityName, String... sorts) {
+        if (!Arrays.asList(sorts).contains(sort)) {
+            throw new BadRequestAlertException("The sort must be one of " + Arrays.toString(sorts), entityName, "sortinvalid");
+        }
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestAlertException("The size must be between 1 and " + MAX_SIZE, entityName, "sizeinvalid");
+        }
+    }
+
+    /**
+     * Decodes a cursor issued for the same sort.
+     *
+     * @return the position, or null for the first slice.
+     * @throws BadRequestAlertException if the cursor is malformed or was issued for another sort.
+     */
+    static Cursor decode(String cursor, String sort, String entityName) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idEnd = decoded.indexOf(SEPARATOR, sort.length() + 1);
+            if (!decoded.startsWith(sort + SEPARATOR) || idEnd < 0) {
+                throw new IllegalArgumentException("Cursor issued for another sort");
+            }
+            Long id = Long.valueOf(decoded.substring(sort.length() + 1, idEnd));
+            return new Cursor(id, decoded.substring(idEnd + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("The cursor is invalid", entityName, "cursorinvalid");
+        }
+    }
+
+    static String encode(String sort, Long id, Object key) {
+        String position = sort + SEPARATOR + id + SEPARATOR + (key != null ? key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generates a {@code Link} header to the next slice, if there is one.
+     *
+     * @param slice the current slice.
+     * @param cursorOf encodes the position of a row.
+     * @return the headers.
+     */
+    static <T> HttpHeaders generateSliceHttpHeaders(Slice<T> slice, Function<T, String> cursorOf) {
+        HttpHeaders headers = new HttpHeaders();
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            String next = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .replaceQueryParam("cursor", cursorOf.apply(content.get(content.size() - 1)))
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
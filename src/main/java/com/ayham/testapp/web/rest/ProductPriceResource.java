@@ -1,20 +1,41 @@
 package com.ayham.testapp.web.rest;
 
+import com.ayham.testapp.config.ApplicationProperties;
 import com.ayham.testapp.domain.ProductPrice;
 import com.ayham.testapp.repository.ProductPriceRepository;
+import com.ayham.testapp.security.AuthoritiesConstants;
+import com.ayham.testapp.service.ExportService;
+import com.ayham.testapp.service.PriceAnalyticsService;
+import com.ayham.testapp.service.PriceRollupService;
 import com.ayham.testapp.service.ProductPriceService;
+import com.ayham.testapp.service.ProductPriceService.AverageMode;
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import com.ayham.testapp.service.dto.PriceAnalyticsBatchDTO;
+import com.ayham.testapp.service.dto.PriceRangeStatisticsDTO;
+import com.ayham.testapp.service.dto.PriceStatisticsDTO;
+import com.ayham.testapp.service.dto.PriceWindowDTO;
 import com.ayham.testapp.web.rest.errors.BadRequestAlertException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -29,6 +50,8 @@ public class ProductPriceResource {
 
     private static final String ENTITY_NAME = "productPrice";
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -36,9 +59,35 @@ public class ProductPriceResource {
 
     private final ProductPriceRepository productPriceRepository;
 
-    public ProductPriceResource(ProductPriceService productPriceService, ProductPriceRepository productPriceRepository) {
+    private final PriceRollupService priceRollupService;
+
+    private final PriceAnalyticsService priceAnalyticsService;
+
+    private final ExportService exportService;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxBatchSize;
+
+    private final int maxBulkItems;
+
+    public ProductPriceResource(
+        ProductPriceService productPriceService,
+        ProductPriceRepository productPriceRepository,
+        PriceRollupService priceRollupService,
+        PriceAnalyticsService priceAnalyticsService,
+        ExportService exportService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
         this.productPriceService = productPriceService;
         this.productPriceRepository = productPriceRepository;
+        this.priceRollupService = priceRollupService;
+        this.priceAnalyticsService = priceAnalyticsService;
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = applicationProperties.getPriceAnalytics().getMaxBatchSize();
+        this.maxBulkItems = applicationProperties.getBulk().getMaxItems();
     }
 
     /**
@@ -131,6 +180,45 @@ public class ProductPriceResource {
         );
     }
 
+    /**
+     * {@code POST  /product-prices/_bulk} : Create productPrices in chunks.
+     *
+     * @param productPrices the productPrices to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each productPrice, in order.
+     */
+    @PostMapping("/product-prices/_bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> createProductPrices(@RequestBody List<ProductPrice> productPrices) {
+        log.debug("REST request to save {} ProductPrices", productPrices.size());
+        validateBulkSize(productPrices.size());
+        return ResponseEntity.ok(productPriceService.saveAll(productPrices));
+    }
+
+    /**
+     * {@code PATCH  /product-prices/_bulk} : Partial updates given fields of existing productPrices in chunks, null fields are ignored.
+     *
+     * @param productPrices the productPrices to update, each with its id.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each productPrice, in order.
+     */
+    @PatchMapping(value = "/product-prices/_bulk", consumes = { "application/json", "application/merge-patch+json" })
+    public ResponseEntity<List<BulkItemResultDTO>> partialUpdateProductPrices(@RequestBody List<ProductPrice> productPrices) {
+        log.debug("REST request to partial update {} ProductPrices", productPrices.size());
+        validateBulkSize(productPrices.size());
+        return ResponseEntity.ok(productPriceService.partialUpdateAll(productPrices));
+    }
+
+    /**
+     * {@code POST  /product-prices/_bulk-delete} : Delete productPrices in chunks.
+     *
+     * @param ids the ids of the productPrices to delete.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each productPrice, in order.
+     */
+    @PostMapping("/product-prices/_bulk-delete")
+    public ResponseEntity<List<BulkItemResultDTO>> deleteProductPrices(@RequestBody List<Long> ids) {
+        log.debug("REST request to delete {} ProductPrices", ids.size());
+        validateBulkSize(ids.size());
+        return ResponseEntity.ok(productPriceService.deleteAll(ids));
+    }
+
     /**
      * {@code GET  /product-prices} : get all the productPrices.
      *
@@ -142,6 +230,67 @@ public class ProductPriceResource {
         return productPriceService.findAll();
     }
 
+    /**
+     * {@code GET  /product-prices/_slice} : get a slice of the productPrices, following the position of a cursor.
+     *
+     * @param sort the sort key, {@code id} or {@code startDate}, ties broken by id. The productPrices without a start date
+     * come last.
+     * @param cursor the cursor from the {@code next} link of the previous slice, or none for the first slice.
+     * @param size the maximum number of productPrices.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productPrices in body, with a {@code Link} to the next slice if there is one.
+     */
+    @GetMapping("/product-prices/_slice")
+    public ResponseEntity<List<ProductPrice>> getProductPriceSlice(
+        @RequestParam(defaultValue = "id") String sort,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get a slice of ProductPrices by {}", sort);
+        KeysetPagination.validate(sort, size, ENTITY_NAME, "id", "startDate");
+        KeysetPagination.Cursor after = KeysetPagination.decode(cursor, sort, ENTITY_NAME);
+        Long afterId = after != null ? after.getId() : null;
+        Slice<ProductPrice> slice;
+        if ("startDate".equals(sort)) {
+            Instant afterStartDate;
+            try {
+                // An empty key is the position of a productPrice without a start date, those come last
+                afterStartDate = after != null && !after.getKey().isEmpty() ? Instant.parse(after.getKey()) : null;
+            } catch (DateTimeParseException e) {
+                throw new BadRequestAlertException("The cursor is invalid", ENTITY_NAME, "cursorinvalid");
+            }
+            slice = productPriceService.findSliceOrderByStartDate(afterStartDate, afterId, size);
+        } else {
+            slice = productPriceService.findSliceOrderById(afterId, size);
+        }
+        HttpHeaders headers = KeysetPagination.generateSliceHttpHeaders(
+            slice,
+            productPrice ->
+                KeysetPagination.encode(sort, productPrice.getId(), "startDate".equals(sort) ? productPrice.getStartDate() : null)
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /product-prices/_export} : export all the productPrices, streamed one row at a time.
+     *
+     * @param format the format of the rows, {@code NDJSON} or {@code CSV}.
+     * @param gzip whether to gzip the body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the productPrices as an attachment in body.
+     */
+    @GetMapping("/product-prices/_export")
+    public ResponseEntity<StreamingResponseBody> exportProductPrices(
+        @RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+        @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        log.debug("REST request to export all ProductPrices as {}", format);
+        return ExportResponses.attachment(
+            "product-prices",
+            format,
+            gzip,
+            outputStream -> exportService.exportProductPrices(format, outputStream)
+        );
+    }
+
     /**
      * {@code GET  /product-prices/:id} : get the "id" productPrice.
      *
@@ -177,33 +326,202 @@ public class ProductPriceResource {
      * @param productId the id of the product
      * @param startTime of the period
      * @param endTime of the period
+     * @param mode {@code ARITHMETIC} to count every price once, {@code TIME_WEIGHTED} to weight prices by their overlap with the period
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the average productPrice
      */
     @GetMapping("/product-prices/average/{productId}")
     public ResponseEntity<Double> getProductPriceAverage(
         @PathVariable Long productId,
-        @PathVariable Instant startTime,
-        @PathVariable Instant endTime
+        @RequestParam Instant startTime,
+        @RequestParam Instant endTime,
+        @RequestParam(defaultValue = "ARITHMETIC") AverageMode mode
     ) {
         log.debug("REST request to get ProductPrice average: {}", productId);
-        Double averageProductPrice = productPriceService.getAveragePriceForProduct(productId, startTime, endTime);
+        validatePeriod(startTime, endTime);
+        Double averageProductPrice = productPriceService.getAveragePriceForProduct(productId, startTime, endTime, mode);
         return ResponseUtil.wrapOrNotFound(Optional.of(averageProductPrice));
     }
 
     /**
-     * {@code GET  /product-prices/category-average/:productId} : get the average productPrice during period.
+     * {@code GET  /product-prices/category-average/:categoryId} : get the average productPrice during period.
      *
      * @param categoryId the id of the category
+     * @param startTime of the period
+     * @param endTime of the period
+     * @param mode {@code ARITHMETIC} to count every price once, {@code TIME_WEIGHTED} to weight prices by their overlap with the period
+     * @param subcategories whether the products of all subcategories are included
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the average productPrice
      */
     @GetMapping("/product-prices/category-average/{categoryId}")
     public ResponseEntity<Double> getProductPriceAverageForCategory(
         @PathVariable Long categoryId,
-        @PathVariable Instant startTime,
-        @PathVariable Instant endTime
+        @RequestParam Instant startTime,
+        @RequestParam Instant endTime,
+        @RequestParam(defaultValue = "ARITHMETIC") AverageMode mode,
+        @RequestParam(defaultValue = "false") boolean subcategories
     ) {
         log.debug("REST request to get ProductPrice average: {}", categoryId);
-        Double averageProductPrice = productPriceService.getAveragePriceForCategory(categoryId, startTime, endTime);
+        validatePeriod(startTime, endTime);
+        Double averageProductPrice = subcategories
+            ? productPriceService.getAveragePriceForCategoryTree(categoryId, startTime, endTime, mode)
+            : productPriceService.getAveragePriceForCategory(categoryId, startTime, endTime, mode);
         return ResponseUtil.wrapOrNotFound(Optional.of(averageProductPrice));
     }
+
+    /**
+     * {@code GET  /product-prices/statistics/:productId} : get the time-weighted statistics of the productPrices during period.
+     *
+     * @param productId the id of the product
+     * @param startTime of the period
+     * @param endTime of the period
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the statistics
+     */
+    @GetMapping("/product-prices/statistics/{productId}")
+    public ResponseEntity<PriceRangeStatisticsDTO> getProductPriceStatistics(
+        @PathVariable Long productId,
+        @RequestParam Instant startTime,
+        @RequestParam Instant endTime
+    ) {
+        log.debug("REST request to get ProductPrice statistics: {}", productId);
+        validatePeriod(startTime, endTime);
+        return ResponseEntity.ok(productPriceService.getStatisticsForProduct(productId, startTime, endTime));
+    }
+
+    /**
+     * {@code GET  /product-prices/category-statistics/:categoryId} : get the time-weighted statistics of the productPrices during period.
+     *
+     * @param categoryId the id of the category
+     * @param startTime of the period
+     * @param endTime of the period
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the statistics
+     */
+    @GetMapping("/product-prices/category-statistics/{categoryId}")
+    public ResponseEntity<PriceRangeStatisticsDTO> getProductPriceStatisticsForCategory(
+        @PathVariable Long categoryId,
+        @RequestParam Instant startTime,
+        @RequestParam Instant endTime
+    ) {
+        log.debug("REST request to get ProductPrice statistics: {}", categoryId);
+        validatePeriod(startTime, endTime);
+        return ResponseEntity.ok(productPriceService.getStatisticsForCategory(categoryId, startTime, endTime));
+    }
+
+    /**
+     * {@code GET  /product-prices/category-tree-statistics/:categoryId} : get the average, count, min and max of the productPrices
+     * of a category and all of its subcategories during period.
+     *
+     * @param categoryId the id of the root category
+     * @param startTime of the period
+     * @param endTime of the period
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the statistics
+     */
+    @GetMapping("/product-prices/category-tree-statistics/{categoryId}")
+    public ResponseEntity<PriceStatisticsDTO> getProductPriceStatisticsForCategoryTree(
+        @PathVariable Long categoryId,
+        @RequestParam Instant startTime,
+        @RequestParam Instant endTime
+    ) {
+        log.debug("REST request to get ProductPrice statistics for the subtree: {}", categoryId);
+        validatePeriod(startTime, endTime);
+        return ResponseEntity.ok(productPriceService.getStatisticsForCategoryTree(categoryId, startTime, endTime));
+    }
+
+    /**
+     * {@code GET  /product-prices/overlapping/:productId} : get the productPrices of a product overlapping a period.
+     *
+     * @param productId the id of the product
+     * @param startTime of the period
+     * @param endTime of the period
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productPrices in body, sorted by start date
+     */
+    @GetMapping("/product-prices/overlapping/{productId}")
+    public List<ProductPrice> getOverlappingProductPrices(
+        @PathVariable Long productId,
+        @RequestParam Instant startTime,
+        @RequestParam Instant endTime
+    ) {
+        log.debug("REST request to get the ProductPrices overlapping a period: {}", productId);
+        validatePeriod(startTime, endTime);
+        return productPriceService.findOverlapping(productId, startTime, endTime);
+    }
+
+    /**
+     * {@code GET  /product-prices/effective/:productId} : get the productPrice of a product in effect at a time.
+     *
+     * @param productId the id of the product
+     * @param time the time
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productPrice, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/product-prices/effective/{productId}")
+    public ResponseEntity<ProductPrice> getEffectiveProductPrice(@PathVariable Long productId, @RequestParam Instant time) {
+        log.debug("REST request to get the ProductPrice in effect: {}", productId);
+        return ResponseUtil.wrapOrNotFound(productPriceService.findEffective(productId, time));
+    }
+
+    /**
+     * {@code POST  /product-prices/_rebuild-rollups} : recompute the price rollups from all productPrices.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of rollups written
+     */
+    @PostMapping("/product-prices/_rebuild-rollups")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Long> rebuildPriceRollups() {
+        log.debug("REST request to rebuild the price rollups");
+        return ResponseEntity.ok(priceRollupService.rebuild());
+    }
+
+    /**
+     * {@code POST  /product-prices/_batch-statistics} : get the average, count, min and max of the productPrices of many products
+     * and categories over many windows at once.
+     *
+     * @param batch the ids of the products and categories, and the windows.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and one JSON result per line in body, in completion order,
+     * or with status {@code 400 (Bad Request)} if a window is invalid or the batch has too many results.
+     */
+    @PostMapping("/product-prices/_batch-statistics")
+    public ResponseEntity<StreamingResponseBody> getProductPriceStatisticsBatch(@Valid @RequestBody PriceAnalyticsBatchDTO batch) {
+        log.debug("REST request to get a batch of ProductPrice statistics : {}", batch);
+        for (PriceWindowDTO window : batch.getWindows()) {
+            validatePeriod(window.getStartTime(), window.getEndTime());
+        }
+        long ids = (batch.getProductIds() != null ? batch.getProductIds().size() : 0) +
+            (batch.getCategoryIds() != null ? batch.getCategoryIds().size() : 0);
+        if (ids * batch.getWindows().size() > maxBatchSize) {
+            throw new BadRequestAlertException(
+                "A batch cannot have more than " + maxBatchSize + " results",
+                ENTITY_NAME,
+                "batchtoolarge"
+            );
+        }
+        StreamingResponseBody body = outputStream ->
+            priceAnalyticsService.computeBatch(
+                batch,
+                result -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(result));
+                        outputStream.write('\n');
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            );
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    private void validatePeriod(Instant startTime, Instant endTime) {
+        if (!startTime.isBefore(endTime)) {
+            throw new BadRequestAlertException("The start of the period must be before its end", ENTITY_NAME, "periodinvalid");
+        }
+    }
+
+    private void validateBulkSize(int size) {
+        if (size > maxBulkItems) {
+            throw new BadRequestAlertException(
+                "A bulk request cannot have more than " + maxBulkItems + " items",
+                ENTITY_NAME,
+                "batchtoolarge"
+            );
+        }
+    }
 }
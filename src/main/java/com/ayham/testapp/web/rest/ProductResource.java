@@ -1,9 +1,20 @@
 package com.ayham.testapp.web.rest;
 
+import com.ayham.testapp.config.ApplicationProperties;
 import com.ayham.testapp.domain.Product;
+import com.ayham.testapp.domain.enumeration.Status;
 import com.ayham.testapp.repository.ProductRepository;
+import com.ayham.testapp.security.AuthoritiesConstants;
+import com.ayham.testapp.service.ExportService;
+import com.ayham.testapp.service.ProductAutocompleteIndex;
+import com.ayham.testapp.service.ProductQueryService;
 import com.ayham.testapp.service.ProductService;
 import com.ayham.testapp.service.UserService;
+import com.ayham.testapp.service.criteria.ProductCriteria;
+import com.ayham.testapp.service.dto.BulkItemResultDTO;
+import com.ayham.testapp.service.dto.ProductDTO;
+import com.ayham.testapp.service.dto.ProductSearchHitDTO;
+import com.ayham.testapp.service.dto.ProductSummaryDTO;
 import com.ayham.testapp.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -17,9 +28,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -43,9 +57,24 @@ public class ProductResource {
 
     private final ProductRepository productRepository;
 
-    public ProductResource(ProductService productService, ProductRepository productRepository) {
+    private final ExportService exportService;
+
+    private final ProductQueryService productQueryService;
+
+    private final int maxBulkItems;
+
+    public ProductResource(
+        ProductService productService,
+        ProductRepository productRepository,
+        ExportService exportService,
+        ProductQueryService productQueryService,
+        ApplicationProperties applicationProperties
+    ) {
         this.productService = productService;
         this.productRepository = productRepository;
+        this.exportService = exportService;
+        this.productQueryService = productQueryService;
+        this.maxBulkItems = applicationProperties.getBulk().getMaxItems();
     }
 
     /**
@@ -150,9 +179,7 @@ public class ProductResource {
      */
     @PatchMapping(value = "/products/{id}/like", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Product> like(@PathVariable(value = "id", required = false) final Long id) throws URISyntaxException {
-        if (!productRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        log.debug("REST request to like Product : {}", id);
         productService.like(id);
         return ResponseEntity.ok().build();
     }
@@ -169,36 +196,258 @@ public class ProductResource {
      */
     @PatchMapping(value = "/products/{id}/unlike", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Product> unlike(@PathVariable(value = "id", required = false) final Long id) throws URISyntaxException {
-        if (!productRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        log.debug("REST request to unlike Product : {}", id);
         productService.unLike(id);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * {@code POST  /products/_bulk} : Create products in chunks.
+     *
+     * @param products the products to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each product, in order.
+     */
+    @PostMapping("/products/_bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> createProducts(@RequestBody List<Product> products) {
+        log.debug("REST request to save {} Products", products.size());
+        validateBulkSize(products.size());
+        return ResponseEntity.ok(productService.saveAll(products));
+    }
+
+    /**
+     * {@code PATCH  /products/_bulk} : Partial updates given fields of existing products in chunks, null fields are ignored.
+     *
+     * @param products the products to update, each with its id.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each product, in order.
+     */
+    @PatchMapping(value = "/products/_bulk", consumes = { "application/json", "application/merge-patch+json" })
+    public ResponseEntity<List<BulkItemResultDTO>> partialUpdateProducts(@RequestBody List<Product> products) {
+        log.debug("REST request to partial update {} Products", products.size());
+        validateBulkSize(products.size());
+        return ResponseEntity.ok(productService.partialUpdateAll(products));
+    }
+
+    /**
+     * {@code POST  /products/_bulk-status} : Set the status of products in chunks.
+     *
+     * @param status the new status.
+     * @param ids the ids of the products.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each product, in order.
+     */
+    @PostMapping("/products/_bulk-status")
+    public ResponseEntity<List<BulkItemResultDTO>> updateProductStatuses(@RequestParam Status status, @RequestBody List<Long> ids) {
+        log.debug("REST request to set the status of {} Products to {}", ids.size(), status);
+        validateBulkSize(ids.size());
+        return ResponseEntity.ok(productService.updateStatusAll(ids, status));
+    }
+
+    /**
+     * {@code POST  /products/_bulk-delete} : Delete products in chunks.
+     *
+     * @param ids the ids of the products to delete.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each product, in order.
+     */
+    @PostMapping("/products/_bulk-delete")
+    public ResponseEntity<List<BulkItemResultDTO>> deleteProducts(@RequestBody List<Long> ids) {
+        log.debug("REST request to delete {} Products", ids.size());
+        validateBulkSize(ids.size());
+        return ResponseEntity.ok(productService.deleteAll(ids));
+    }
+
+    /**
+     * {@code GET  /products/_search} : full-text search of the products, most relevant first.
+     *
+     * @param q the words to search in the titles and descriptions, in the simple query syntax.
+     * @param status only products with this status, if any.
+     * @param categoryId only products of this category, if any.
+     * @param cursor the cursor from the {@code next} link of the previous slice, or none for the first slice.
+     * @param size the maximum number of hits.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of hits in body, with a {@code Link} to the next slice if there is one.
+     */
+    @GetMapping("/products/_search")
+    public ResponseEntity<List<ProductSearchHitDTO>> searchProducts(
+        @RequestParam String q,
+        @RequestParam(required = false) Status status,
+        @RequestParam(required = false) Long categoryId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to search Products : {}", q);
+        KeysetPagination.validate("relevance", size, ENTITY_NAME, "relevance");
+        KeysetPagination.Cursor after = KeysetPagination.decode(cursor, "relevance", ENTITY_NAME);
+        Float afterScore;
+        try {
+            afterScore = after != null ? Float.valueOf(after.getKey()) : null;
+        } catch (NumberFormatException e) {
+            throw new BadRequestAlertException("The cursor is invalid", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<ProductSearchHitDTO> slice = productService.search(
+            q,
+            status,
+            categoryId,
+            afterScore,
+            after != null ? after.getId() : null,
+            size
+        );
+        HttpHeaders headers = KeysetPagination.generateSliceHttpHeaders(
+            slice,
+            hit -> KeysetPagination.encode("relevance", hit.getId(), hit.getScore())
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /products/_autocomplete} : complete a prefix of a product title, active and most liked products first.
+     *
+     * @param prefix the start of the title, or of a word of it.
+     * @param size the maximum number of products.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
+     */
+    @GetMapping("/products/_autocomplete")
+    public ResponseEntity<List<ProductSummaryDTO>> autocompleteProducts(
+        @RequestParam String prefix,
+        @RequestParam(defaultValue = "10") int size
+    ) {
+        log.debug("REST request to autocomplete Products : {}", prefix);
+        if (size < 1 || size > ProductAutocompleteIndex.MAX_SIZE) {
+            throw new BadRequestAlertException(
+                "The size must be between 1 and " + ProductAutocompleteIndex.MAX_SIZE,
+                ENTITY_NAME,
+                "sizeinvalid"
+            );
+        }
+        return ResponseEntity.ok(productService.autocomplete(prefix, size));
+    }
+
+    /**
+     * {@code POST  /products/_reindex} : rebuild the search index of all products from the database.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of products indexed
+     */
+    @PostMapping("/products/_reindex")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Long> reindexProducts() {
+        log.debug("REST request to reindex all Products");
+        return ResponseEntity.ok(productService.reindex());
+    }
+
+    /**
+     * {@code POST  /products/_reconcile-like-counts} : recompute the like counts of all products from their likes.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of products repaired
+     */
+    @PostMapping("/products/_reconcile-like-counts")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Long> reconcileLikeCounts() {
+        log.debug("REST request to reconcile the like counts");
+        return ResponseEntity.ok(productService.reconcileLikeCounts());
+    }
+
     /**
      * {@code GET  /products} : get all the products.
      *
+     * @param criteria the criteria which the requested entities should match.
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
      */
     @GetMapping("/products")
     public ResponseEntity<List<Product>> getAllProducts(
+        ProductCriteria criteria,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
         @RequestParam(required = false, defaultValue = "false") boolean eagerload
     ) {
-        log.debug("REST request to get a page of Products");
+        log.debug("REST request to get Products by criteria: {}", criteria);
         Page<Product> page;
         if (eagerload) {
-            page = productService.findAllWithEagerRelationships(pageable);
+            page = productQueryService.findByCriteriaWithEagerRelationships(criteria, pageable);
         } else {
-            page = productService.findAll(pageable);
+            page = productQueryService.findByCriteria(criteria, pageable);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /products?fields=} : get the selected fields of the products, read without loading the entities.
+     *
+     * @param fields the comma separated fields to select among {@code id}, {@code title}, {@code description}, {@code status},
+     * {@code likeCount}, {@code categoryId} and {@code ownerId}.
+     * @param criteria the criteria which the requested entities should match.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
+     */
+    @GetMapping(value = "/products", params = "fields")
+    public ResponseEntity<List<ProductDTO>> getAllProductFields(
+        @RequestParam String fields,
+        ProductCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the fields {} of Products by criteria: {}", fields, criteria);
+        Page<ProductDTO> page = productQueryService.findFieldsByCriteria(criteria, fields, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /products/count} : count all the products.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/products/count")
+    public ResponseEntity<Long> countProducts(ProductCriteria criteria) {
+        log.debug("REST request to count Products by criteria: {}", criteria);
+        return ResponseEntity.ok().body(productQueryService.countByCriteria(criteria));
+    }
+
+    /**
+     * {@code GET  /products/_slice} : get a slice of the products, following the position of a cursor.
+     *
+     * @param sort the sort key, {@code id} or {@code title}, ties broken by id.
+     * @param cursor the cursor from the {@code next} link of the previous slice, or none for the first slice.
+     * @param size the maximum number of products.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body, with a {@code Link} to the next slice if there is one.
+     */
+    @GetMapping("/products/_slice")
+    public ResponseEntity<List<Product>> getProductSlice(
+        @RequestParam(defaultValue = "id") String sort,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get a slice of Products by {}", sort);
+        KeysetPagination.validate(sort, size, ENTITY_NAME, "id", "title");
+        KeysetPagination.Cursor after = KeysetPagination.decode(cursor, sort, ENTITY_NAME);
+        Long afterId = after != null ? after.getId() : null;
+        Slice<Product> slice;
+        if ("title".equals(sort)) {
+            slice = productService.findSliceOrderByTitle(after != null ? after.getKey() : null, afterId, size);
+        } else {
+            slice = productService.findSliceOrderById(afterId, size);
+        }
+        HttpHeaders headers = KeysetPagination.generateSliceHttpHeaders(
+            slice,
+            product -> KeysetPagination.encode(sort, product.getId(), "title".equals(sort) ? product.getTitle() : null)
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /products/_export} : export all the products, streamed one row at a time.
+     *
+     * @param format the format of the rows, {@code NDJSON} or {@code CSV}.
+     * @param gzip whether to gzip the body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the products as an attachment in body.
+     */
+    @GetMapping("/products/_export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+        @RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+        @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        log.debug("REST request to export all Products as {}", format);
+        return ExportResponses.attachment("products", format, gzip, outputStream -> exportService.exportProducts(format, outputStream));
+    }
+
     /**
      * {@code GET  /products/:id} : get the "id" product.
      *
@@ -212,6 +461,19 @@ public class ProductResource {
         return ResponseUtil.wrapOrNotFound(product);
     }
 
+    /**
+     * {@code GET  /products/:id?fields=} : get the selected fields of the "id" product, read without loading the entity.
+     *
+     * @param id the id of the product to retrieve.
+     * @param fields the comma separated fields to select, as for {@code GET /products?fields=}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/products/{id}", params = "fields")
+    public ResponseEntity<ProductDTO> getProductFields(@PathVariable Long id, @RequestParam String fields) {
+        log.debug("REST request to get the fields {} of Product : {}", fields, id);
+        return ResponseUtil.wrapOrNotFound(productQueryService.findFields(id, fields));
+    }
+
     /**
      * {@code DELETE  /products/:id} : delete the "id" product.
      *
@@ -227,4 +489,14 @@ public class ProductResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    private void validateBulkSize(int size) {
+        if (size > maxBulkItems) {
+            throw new BadRequestAlertException(
+                "A bulk request cannot have more than " + maxBulkItems + " items",
+                ENTITY_NAME,
+                "batchtoolarge"
+            );
+        }
+    }
 }
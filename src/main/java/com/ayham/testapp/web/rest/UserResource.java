@@ -2,18 +2,27 @@ package com.ayham.testapp.web.rest;
 
 import com.ayham.testapp.domain.User;
 import com.ayham.testapp.repository.UserRepository;
+import com.ayham.testapp.service.ProductService;
 import com.ayham.testapp.service.UserService;
+import com.ayham.testapp.service.dto.ProductSummaryDTO;
 import com.ayham.testapp.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import tech.jhipster.web.util.HeaderUtil;
 
@@ -35,9 +44,12 @@ public class UserResource {
 
     private final UserRepository userRepository;
 
-    public UserResource(UserService userService, UserRepository userRepository) {
+    private final ProductService productService;
+
+    public UserResource(UserService userService, UserRepository userRepository, ProductService productService) {
         this.userService = userService;
         this.userRepository = userRepository;
+        this.productService = productService;
     }
 
     /**
@@ -78,14 +90,72 @@ public class UserResource {
     /**
      * {@code POST  /users/logout} : logout user.
      *
-     * @param user the user to logout.
+     * @param token the token to invalidate, taken from the {@code Authorization} header.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)}.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/users/logout")
-    public ResponseEntity<String> logoutUser(@Valid @RequestBody User user) throws URISyntaxException {
-        log.debug("REST request to login a User : {}", user.getUsername());
-        userService.logout(user);
+    public ResponseEntity<String> logoutUser(@RequestHeader(HttpHeaders.AUTHORIZATION) String token) throws URISyntaxException {
+        log.debug("REST request to logout a User");
+        userService.logout(token);
         return ResponseEntity.ok().body("Success");
     }
+
+    /**
+     * {@code GET  /users/:id/products} : get a slice of the products owned by the "id" user, in id order.
+     *
+     * @param id the id of the user.
+     * @param cursor the cursor from the {@code next} link of the previous slice, or none for the first slice.
+     * @param size the maximum number of products.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of product summaries in body, with a {@code Link} to the next slice if there is one.
+     */
+    @GetMapping("/users/{id}/products")
+    public ResponseEntity<List<ProductSummaryDTO>> getOwnedProducts(
+        @PathVariable Long id,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get a slice of the Products owned by User : {}", id);
+        KeysetPagination.validate("id", size, ENTITY_NAME, "id");
+        KeysetPagination.Cursor after = KeysetPagination.decode(cursor, "id", ENTITY_NAME);
+        validateUserExists(id);
+        Slice<ProductSummaryDTO> slice = productService.findSliceOwnedBy(id, after != null ? after.getId() : null, size);
+        HttpHeaders headers = KeysetPagination.generateSliceHttpHeaders(
+            slice,
+            product -> KeysetPagination.encode("id", product.getId(), null)
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /users/:id/likes} : get a slice of the products liked by the "id" user, in id order.
+     *
+     * @param id the id of the user.
+     * @param cursor the cursor from the {@code next} link of the previous slice, or none for the first slice.
+     * @param size the maximum number of products.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of product summaries in body, with a {@code Link} to the next slice if there is one.
+     */
+    @GetMapping("/users/{id}/likes")
+    public ResponseEntity<List<ProductSummaryDTO>> getLikedProducts(
+        @PathVariable Long id,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get a slice of the Products liked by User : {}", id);
+        KeysetPagination.validate("id", size, ENTITY_NAME, "id");
+        KeysetPagination.Cursor after = KeysetPagination.decode(cursor, "id", ENTITY_NAME);
+        validateUserExists(id);
+        Slice<ProductSummaryDTO> slice = productService.findSliceLikedBy(id, after != null ? after.getId() : null, size);
+        HttpHeaders headers = KeysetPagination.generateSliceHttpHeaders(
+            slice,
+            product -> KeysetPagination.encode("id", product.getId(), null)
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    private void validateUserExists(Long id) {
+        if (!userRepository.existsById(id)) {
+            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        }
+    }
 }
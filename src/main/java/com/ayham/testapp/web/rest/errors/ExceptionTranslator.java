@@ -1,5 +1,9 @@
 package com.ayham.testapp.web.rest.errors;
 
+import com.ayham.testapp.service.Exception.CategoryCycleException;
+import com.ayham.testapp.service.Exception.InvalidFieldsException;
+import com.ayham.testapp.service.Exception.PasswordHashingUnavailableException;
+import com.ayham.testapp.service.Exception.ProductDoesNotExistException;
 import com.ayham.testapp.service.Exception.UsernameAlreadyUsedException;
 import java.net.URI;
 import java.util.Arrays;
@@ -15,6 +19,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -147,6 +152,32 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePasswordHashingUnavailableException(
+        PasswordHashingUnavailableException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem.builder().withStatus(Status.SERVICE_UNAVAILABLE).withDetail(ex.getMessage()).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return create(ex, problem, request, headers);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleCategoryCycleException(CategoryCycleException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "category", "parentcycle"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidFieldsException(InvalidFieldsException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), ex.getEntityName(), "fieldsinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleProductDoesNotExistException(ProductDoesNotExistException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException("Entity not found", "product", "idnotfound"), request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(